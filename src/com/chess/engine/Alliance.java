@@ -28,6 +28,11 @@ public enum Alliance {
             return false;
         }
 
+        @Override
+        public Alliance getOpponent() {
+            return BLACK;
+        }
+
         @Override
         public Player choosePlayer(final WhitePlayer whitePlayer, final BlackPlayer blackPlayer) {
             return whitePlayer;
@@ -61,6 +66,11 @@ public enum Alliance {
             return true;
         }
 
+        @Override
+        public Alliance getOpponent() {
+            return WHITE;
+        }
+
         @Override
         public Player choosePlayer(final WhitePlayer whitePlayer, final BlackPlayer blackPlayer) {
             return blackPlayer;
@@ -86,6 +96,11 @@ public enum Alliance {
     public abstract boolean isWhite();
     public abstract boolean isBlack();
 
+    /**
+     * Returns the other alliance.
+     */
+    public abstract Alliance getOpponent();
+
     /**
      * Returns which player (white or black) corresponds to this alliance.
      */
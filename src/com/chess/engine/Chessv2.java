@@ -1,12 +1,366 @@
 package com.chess.engine;
 import com.chess.engine.board.Board;
+import com.chess.engine.board.FenUtilities;
+import com.chess.engine.board.LeaperAttacks;
+import com.chess.engine.board.MagicBitBoards;
+import com.chess.engine.board.Move;
+import com.chess.engine.board.MoveList;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.board.StaticExchange;
+import com.chess.engine.board.Tile;
+import com.chess.engine.board.Zobrist;
+import com.chess.engine.perft.Perft;
+import com.chess.engine.perft.PerftHashTable;
+import com.chess.engine.perft.PerftSuite;
+import com.chess.engine.player.ai.MiniMaxAI;
+import com.chess.engine.player.ai.SearchLimits;
+import com.chess.engine.player.ai.TranspositionTable;
+import com.chess.engine.pieces.PieceUtils;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
 public class Chessv2 {
+
+    private static final String USAGE =
+            "Usage: Chessv2 [perft <depth> [fen] | divide <depth> [fen] | suite [maxNodes] | memory [positions] | startup |\n" +
+            "                smp [depth] [lazy_smp|young_brothers_wait] | selfcheck]\n" +
+            "               [--threads <n>] [--hash <log2 entries>] [--board] [--moves full|incremental|verify]\n" +
+            "  perft   count leaf nodes to the depth (default: the standard start position)\n" +
+            "  divide  as perft, with the count below each root move\n" +
+            "  suite   check the built-in positions against their known counts\n" +
+            "  memory  measure heap bytes per retained position, with and without move lists\n" +
+            "  startup time each start-up step from JVM start to the first legal move list\n" +
+            "  smp     time a fixed-depth search with 1 to 16 threads and report the speedup (default: Lazy SMP)\n" +
+            "  selfcheck  check attack tables, exchange evaluation, hash table, move picker and incremental moves\n" +
+            "  --threads  split root moves across n threads\n" +
+            "  --hash     share subtree counts in a 2^n entry hash table\n" +
+            "  --board    count through the Board/Player API instead of SearchBoard\n" +
+            "  --moves    how Board updates piece moves after a move (default: full); verify checks incremental against full";
+
+    private static final long DEFAULT_SUITE_MAX_NODES = 5_000_000L;
+    private static final int DEFAULT_MEMORY_POSITIONS = 20_000;
+    private static final int DEFAULT_SMP_DEPTH = 6;
+    private static final long SELF_CHECK_MAX_NODES = 100_000L;
+    private static final int[] SMP_THREAD_COUNTS = {1, 2, 4, 8, 16};
+    private static final String[] SMP_POSITIONS = {
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N2N2/PP2BPPP/R2QKB1R w KQ - 0 8"
+    };
+
     public static void main(String[] args){
+        if (args.length == 0) {
+            Board board = Board.createStandardBoard();
+            //Driver Code for the Chess.
+            //This will be configured when we publish the application.
+            System.out.println(board);
+            //Prints out the board.
+            return;
+        }
+        try {
+            final boolean succeeded;
+            switch (args[0]) {
+                case "memory":
+                    succeeded = runMemory(args);
+                    break;
+                case "startup":
+                    succeeded = runStartup();
+                    break;
+                case "smp":
+                    succeeded = runSmp(args);
+                    break;
+                case "selfcheck":
+                    succeeded = runSelfCheck();
+                    break;
+                default:
+                    succeeded = runPerft(args);
+            }
+            System.exit(succeeded ? 0 : 1);
+        } catch (final IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+    }
+
+    // ==========================================
+    // Perft
+    // ==========================================
+
+    private static boolean runPerft(final String[] args) {
+        int threads = 1;
+        int hashSizeLog2 = 0;
+        boolean useBoardApi = false;
+        final StringBuilder fen = new StringBuilder();
+        String command = null;
+        String depthArgument = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads":
+                    threads = parseInt(args, ++i);
+                    break;
+                case "--hash":
+                    hashSizeLog2 = parseInt(args, ++i);
+                    break;
+                case "--board":
+                    useBoardApi = true;
+                    break;
+                case "--moves":
+                    Board.setMoveGeneration(parseMoveGeneration(args, ++i));
+                    break;
+                default:
+                    if (command == null) {
+                        command = args[i];
+                    } else if (depthArgument == null) {
+                        depthArgument = args[i];
+                    } else {
+                        // A FEN may arrive as one argument or as its six fields
+                        fen.append(fen.length() == 0 ? "" : " ").append(args[i]);
+                    }
+            }
+        }
+
+        final Perft perft = new Perft(threads, useBoardApi, hashSizeLog2 > 0 ? new PerftHashTable(hashSizeLog2) : null);
+        if ("suite".equals(command)) {
+            final long maxNodes = depthArgument == null ? DEFAULT_SUITE_MAX_NODES : Long.parseLong(depthArgument);
+            return PerftSuite.run(perft, maxNodes, System.out);
+        }
+        if (!"perft".equals(command) && !"divide".equals(command)) {
+            throw new IllegalArgumentException("Unknown command: " + command);
+        }
+        if (depthArgument == null) {
+            throw new IllegalArgumentException("Missing depth");
+        }
+        final int depth = Integer.parseInt(depthArgument);
+        final Board board = fen.length() == 0 ? Board.createStandardBoard() : FenUtilities.createGameFromFEN(fen.toString());
+
+        final long start = System.nanoTime();
+        final long nodes;
+        if ("divide".equals(command)) {
+            long total = 0;
+            for (final Map.Entry<String, Long> entry : perft.divide(board, depth).entrySet()) {
+                System.out.println(entry.getKey() + ": " + entry.getValue());
+                total += entry.getValue();
+            }
+            nodes = total;
+        } else {
+            nodes = perft.count(board, depth);
+        }
+        final long elapsed = System.nanoTime() - start;
+        System.out.printf("Nodes: %,d  Time: %,d ms  NPS: %,d%n", nodes, elapsed / 1_000_000,
+                PerftSuite.nodesPerSecond(nodes, elapsed));
+        return true;
+    }
+
+    // ==========================================
+    // Memory
+    // ==========================================
+
+    /**
+     * Keeps the boards of random games in memory, as a game history does,
+     * and reports the heap each one costs with its legal moves listed and
+     * after Board.releaseMoveLists.
+     */
+    private static boolean runMemory(final String[] args) {
+        final int positions = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_MEMORY_POSITIONS;
+        final List<Board> history = new ArrayList<>(positions);
+        Board.createStandardBoard().currentPlayer().getLegalMoves();
+        final long baseline = usedMemory();
+
+        final Random random = new Random(1);
         Board board = Board.createStandardBoard();
-        //Driver Code for the Chess.
-        //This will be configured when we publish the application.
-        System.out.println(board);
-        //Prints out the board.
+        while (history.size() < positions) {
+            history.add(board);
+            final List<Move> legalMoves = new ArrayList<>(board.currentPlayer().getLegalMoves());
+            board = legalMoves.isEmpty()
+                    ? Board.createStandardBoard()
+                    : board.currentPlayer().makeMove(legalMoves.get(random.nextInt(legalMoves.size()))).getTransitionBoard();
+        }
+        final long withMoveLists = usedMemory() - baseline;
+
+        for (final Board position : history) {
+            position.releaseMoveLists();
+        }
+        final long withoutMoveLists = usedMemory() - baseline;
+
+        System.out.printf("Positions: %,d%n", history.size());
+        System.out.printf("  with move lists:    %,d bytes per position%n", withMoveLists / history.size());
+        System.out.printf("  move lists dropped: %,d bytes per position%n", withoutMoveLists / history.size());
+        return true;
+    }
+
+    // ==========================================
+    // Startup
+    // ==========================================
+
+    /**
+     * Times the cold start of an engine process, step by step, from JVM
+     * start until the first legal move lists are ready. Only meaningful as
+     * the first command of a fresh JVM.
+     */
+    private static boolean runStartup() {
+        final long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+        System.out.printf("  %-28s %,6d    ms%n", "JVM start to main", System.currentTimeMillis() - jvmStartMillis);
+
+        long start = System.nanoTime();
+        LeaperAttacks.knightAttacks(0);
+        MagicBitBoards.rookAttacks(0, 0L);
+        start = printStartupStep("Attack tables", start);
+        Zobrist.blackToMove();
+        start = printStartupStep("Zobrist keys", start);
+        PieceUtils.getPiece(0);
+        Tile.createTile(0, null);
+        start = printStartupStep("Piece and tile caches", start);
+        final Board board = Board.createStandardBoard();
+        start = printStartupStep("Standard board", start);
+        final int legalMoves = board.currentPlayer().getLegalMoves().size();
+        start = printStartupStep("First legal move list", start);
+        final MoveList searchMoves = new MoveList();
+        new SearchBoard(board).generateMoves(searchMoves);
+        printStartupStep("First search move list", start);
+
+        System.out.printf("  %-28s %,6d    ms (%d and %d moves)%n", "JVM start to first moves",
+                System.currentTimeMillis() - jvmStartMillis, legalMoves, searchMoves.size());
+        return true;
+    }
+
+    private static long printStartupStep(final String step, final long start) {
+        final long end = System.nanoTime();
+        System.out.printf("  %-28s %,9.2f ms%n", step, (end - start) / 1_000_000.0);
+        return end;
+    }
+
+    // ==========================================
+    // SMP
+    // ==========================================
+
+    /**
+     * Searches each test position to a fixed depth with every thread
+     * count, from an empty transposition table each time, and reports
+     * time to depth and nodes per second against one thread.
+     */
+    private static boolean runSmp(final String[] args) {
+        final int depth = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SMP_DEPTH;
+        final MiniMaxAI.Parallelism parallelism = args.length > 2
+                ? parseParallelism(args[2])
+                : MiniMaxAI.Parallelism.LAZY_SMP;
+        final SearchLimits limits = SearchLimits.depth(depth);
+        final TranspositionTable table = new TranspositionTable(MiniMaxAI.DEFAULT_HASH_MB);
+        // A full untimed pass first, so the single-threaded baseline does not pay for the JIT
+        timeSmpPositions(new MiniMaxAI(limits, table, 1), table);
+
+        System.out.printf("%s, depth %d, %d positions, %d available processors%n", parallelism, depth,
+                SMP_POSITIONS.length, Runtime.getRuntime().availableProcessors());
+        System.out.printf("  %7s %12s %14s %12s %14s%n", "threads", "time ms", "nodes", "nps", "time speedup");
+        long baselineNanos = 0;
+        for (final int threads : SMP_THREAD_COUNTS) {
+            final long[] nanosAndNodes = timeSmpPositions(new MiniMaxAI(limits, table, threads, parallelism), table);
+            final long nanos = nanosAndNodes[0];
+            if (threads == 1) {
+                baselineNanos = nanos;
+            }
+            System.out.printf("  %7d %,12d %,14d %,12d %13.2fx%n", threads, nanos / 1_000_000, nanosAndNodes[1],
+                    PerftSuite.nodesPerSecond(nanosAndNodes[1], nanos), (double) baselineNanos / nanos);
+        }
+        return true;
+    }
+
+    private static long[] timeSmpPositions(final MiniMaxAI ai, final TranspositionTable table) {
+        long nanos = 0;
+        long nodes = 0;
+        for (final String fen : SMP_POSITIONS) {
+            table.clear();
+            final Board board = FenUtilities.createGameFromFEN(fen);
+            final long start = System.nanoTime();
+            ai.execute(board);
+            nanos += System.nanoTime() - start;
+            nodes += ai.getNodesSearched();
+        }
+        return new long[] {nanos, nodes};
+    }
+
+    // ==========================================
+    // Self-check
+    // ==========================================
+
+    /**
+     * Runs the engine's built-in checks and prints one line for each. The
+     * move picker is checked on the suite positions and every position one
+     * move from them; incremental piece moves are verified against full
+     * generation through a short Board API perft suite.
+     */
+    private static boolean runSelfCheck() {
+        boolean passed = printSelfCheck("Magic attack tables", MagicBitBoards.selfCheck());
+        passed &= printSelfCheck("Static exchange evaluation", StaticExchange.selfCheck());
+        passed &= printSelfCheck("Transposition table entries", TranspositionTable.selfCheck());
+
+        boolean pickerPassed = true;
+        for (final PerftSuite.Position position : PerftSuite.POSITIONS) {
+            final Board board = FenUtilities.createGameFromFEN(position.getFen());
+            pickerPassed &= MiniMaxAI.selfCheck(board);
+            for (final Move move : board.currentPlayer().getLegalMoves()) {
+                pickerPassed &= MiniMaxAI.selfCheck(move.execute());
+            }
+        }
+        passed &= printSelfCheck("Move picker stages", pickerPassed);
+
+        final Board.MoveGeneration generation = Board.getMoveGeneration();
+        Board.setMoveGeneration(Board.MoveGeneration.VERIFY);
+        boolean incrementalPassed;
+        try {
+            incrementalPassed = PerftSuite.run(new Perft(1, true, null), SELF_CHECK_MAX_NODES,
+                    new PrintStream(OutputStream.nullOutputStream()));
+        } catch (final IllegalStateException e) {
+            incrementalPassed = false;
+        } finally {
+            Board.setMoveGeneration(generation);
+        }
+        passed &= printSelfCheck("Incremental piece moves", incrementalPassed);
+        return passed;
+    }
+
+    private static boolean printSelfCheck(final String name, final boolean passed) {
+        System.out.printf("  %-28s %s%n", name, passed ? "OK" : "FAILED");
+        return passed;
+    }
+
+    private static long usedMemory() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static Board.MoveGeneration parseMoveGeneration(final String[] args, final int index) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[index - 1]);
+        }
+        try {
+            return Board.MoveGeneration.valueOf(args[index].toUpperCase());
+        } catch (final IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown move generation: " + args[index]);
+        }
+    }
+
+    private static MiniMaxAI.Parallelism parseParallelism(final String name) {
+        try {
+            return MiniMaxAI.Parallelism.valueOf(name.toUpperCase());
+        } catch (final IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown parallelism: " + name);
+        }
+    }
+
+    private static int parseInt(final String[] args, final int index) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[index - 1]);
+        }
+        return Integer.parseInt(args[index]);
     }
-}
\ No newline at end of file
+}
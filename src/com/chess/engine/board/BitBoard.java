@@ -0,0 +1,189 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.pieces.Piece;
+
+/**
+ * Bitboard view of a position: one long per (alliance, piece type) plus
+ * per-alliance and total occupancy. Bit i corresponds to tile coordinate i,
+ * so bit 0 is the top-left tile (black's queen-side rook square) and bit 63
+ * the bottom-right tile.
+ */
+public final class BitBoard {
+
+    public static final int NUM_PIECE_TYPES = Piece.PieceType.values().length;
+    public static final int NUM_PIECE_INDEXES = NUM_PIECE_TYPES * 2;
+
+    private final long[] pieceBitBoards;
+    private final long[] allianceBitBoards;
+    private long occupied;
+
+    BitBoard() {
+        this.pieceBitBoards = new long[NUM_PIECE_INDEXES];
+        this.allianceBitBoards = new long[2];
+        this.occupied = 0L;
+    }
+
+    BitBoard(final BitBoard other) {
+        this.pieceBitBoards = other.pieceBitBoards.clone();
+        this.allianceBitBoards = other.allianceBitBoards.clone();
+        this.occupied = other.occupied;
+    }
+
+    /**
+     * Index of the bitboard holding pieces of the given alliance and type.
+     * White pieces occupy indexes 0-5 and black pieces 6-11, in PieceType order.
+     */
+    public static int pieceIndex(final Alliance alliance, final Piece.PieceType pieceType) {
+        return alliance.ordinal() * NUM_PIECE_TYPES + pieceType.ordinal();
+    }
+
+    public long getPieces(final Alliance alliance, final Piece.PieceType pieceType) {
+        return this.pieceBitBoards[pieceIndex(alliance, pieceType)];
+    }
+
+    public long getPieces(final int pieceIndex) {
+        return this.pieceBitBoards[pieceIndex];
+    }
+
+    public long getAlliancePieces(final Alliance alliance) {
+        return this.allianceBitBoards[alliance.ordinal()];
+    }
+
+    public long getOccupied() {
+        return this.occupied;
+    }
+
+    public long getEmpty() {
+        return ~this.occupied;
+    }
+
+    public boolean isOccupied(final int coordinate) {
+        return (this.occupied & squareMask(coordinate)) != 0;
+    }
+
+    public boolean isOccupiedBy(final int coordinate, final Alliance alliance) {
+        return (this.allianceBitBoards[alliance.ordinal()] & squareMask(coordinate)) != 0;
+    }
+
+    /**
+     * Coordinate of the given alliance's king, or -1 if there is none.
+     */
+    public int getKingCoordinate(final Alliance alliance) {
+        final long king = getPieces(alliance, Piece.PieceType.KING);
+        return king == 0 ? -1 : Long.numberOfTrailingZeros(king);
+    }
+
+    /**
+     * Is the tile attacked by any piece of the given alliance? Answered by
+     * reverse lookup: each piece type's attack set is generated from the
+     * target tile and intersected with the attacker's pieces of that type.
+     */
+    public boolean isAttacked(final int coordinate, final Alliance attacker) {
+        return isAttacked(coordinate, attacker, this.occupied);
+    }
+
+    /**
+     * As above, with sliders seeing through the given occupancy instead of
+     * the real one, e.g. with the defending king lifted off the board.
+     */
+    public boolean isAttacked(final int coordinate, final Alliance attacker, final long occupied) {
+        final int base = attacker.ordinal() * NUM_PIECE_TYPES;
+        final long queens = this.pieceBitBoards[base + Piece.PieceType.QUEEN.ordinal()];
+        return (LeaperAttacks.pawnAttacks(attacker.getOpponent(), coordinate) &
+                this.pieceBitBoards[base + Piece.PieceType.PAWN.ordinal()]) != 0 ||
+                (LeaperAttacks.knightAttacks(coordinate) & this.pieceBitBoards[base + Piece.PieceType.KNIGHT.ordinal()]) != 0 ||
+                (LeaperAttacks.kingAttacks(coordinate) & this.pieceBitBoards[base + Piece.PieceType.KING.ordinal()]) != 0 ||
+                (MagicBitBoards.bishopAttacks(coordinate, occupied) &
+                        (this.pieceBitBoards[base + Piece.PieceType.BISHOP.ordinal()] | queens)) != 0 ||
+                (MagicBitBoards.rookAttacks(coordinate, occupied) &
+                        (this.pieceBitBoards[base + Piece.PieceType.ROOK.ordinal()] | queens)) != 0;
+    }
+
+    /**
+     * Pieces of both alliances attacking the tile, with sliders seeing
+     * through the given occupancy. Only pieces still in occupied are returned,
+     * so callers can lift pieces off by clearing their bits.
+     */
+    public long getAttackers(final int coordinate, final long occupied) {
+        final int white = Alliance.WHITE.ordinal() * NUM_PIECE_TYPES;
+        final int black = Alliance.BLACK.ordinal() * NUM_PIECE_TYPES;
+        final long bishopsQueens = this.pieceBitBoards[white + Piece.PieceType.BISHOP.ordinal()] |
+                this.pieceBitBoards[black + Piece.PieceType.BISHOP.ordinal()] |
+                this.pieceBitBoards[white + Piece.PieceType.QUEEN.ordinal()] |
+                this.pieceBitBoards[black + Piece.PieceType.QUEEN.ordinal()];
+        final long rooksQueens = this.pieceBitBoards[white + Piece.PieceType.ROOK.ordinal()] |
+                this.pieceBitBoards[black + Piece.PieceType.ROOK.ordinal()] |
+                this.pieceBitBoards[white + Piece.PieceType.QUEEN.ordinal()] |
+                this.pieceBitBoards[black + Piece.PieceType.QUEEN.ordinal()];
+        final long attackers =
+                (LeaperAttacks.pawnAttacks(Alliance.BLACK, coordinate) & this.pieceBitBoards[white + Piece.PieceType.PAWN.ordinal()]) |
+                (LeaperAttacks.pawnAttacks(Alliance.WHITE, coordinate) & this.pieceBitBoards[black + Piece.PieceType.PAWN.ordinal()]) |
+                (LeaperAttacks.knightAttacks(coordinate) & (this.pieceBitBoards[white + Piece.PieceType.KNIGHT.ordinal()] |
+                        this.pieceBitBoards[black + Piece.PieceType.KNIGHT.ordinal()])) |
+                (LeaperAttacks.kingAttacks(coordinate) & (this.pieceBitBoards[white + Piece.PieceType.KING.ordinal()] |
+                        this.pieceBitBoards[black + Piece.PieceType.KING.ordinal()])) |
+                (MagicBitBoards.bishopAttacks(coordinate, occupied) & bishopsQueens) |
+                (MagicBitBoards.rookAttacks(coordinate, occupied) & rooksQueens);
+        return attackers & occupied;
+    }
+
+    /**
+     * Every tile the alliance's pieces attack, whether empty, enemy or own
+     * (so defended pieces are included). Pawns count their captures only.
+     */
+    public long getAttackedTiles(final Alliance attacker) {
+        final int base = attacker.ordinal() * NUM_PIECE_TYPES;
+        final long queens = this.pieceBitBoards[base + Piece.PieceType.QUEEN.ordinal()];
+        long attacks = 0L;
+        for (long pieces = this.pieceBitBoards[base + Piece.PieceType.PAWN.ordinal()]; pieces != 0; pieces &= pieces - 1) {
+            attacks |= LeaperAttacks.pawnAttacks(attacker, lowestCoordinate(pieces));
+        }
+        for (long pieces = this.pieceBitBoards[base + Piece.PieceType.KNIGHT.ordinal()]; pieces != 0; pieces &= pieces - 1) {
+            attacks |= LeaperAttacks.knightAttacks(lowestCoordinate(pieces));
+        }
+        for (long pieces = this.pieceBitBoards[base + Piece.PieceType.BISHOP.ordinal()] | queens; pieces != 0; pieces &= pieces - 1) {
+            attacks |= MagicBitBoards.bishopAttacks(lowestCoordinate(pieces), this.occupied);
+        }
+        for (long pieces = this.pieceBitBoards[base + Piece.PieceType.ROOK.ordinal()] | queens; pieces != 0; pieces &= pieces - 1) {
+            attacks |= MagicBitBoards.rookAttacks(lowestCoordinate(pieces), this.occupied);
+        }
+        for (long pieces = this.pieceBitBoards[base + Piece.PieceType.KING.ordinal()]; pieces != 0; pieces &= pieces - 1) {
+            attacks |= LeaperAttacks.kingAttacks(lowestCoordinate(pieces));
+        }
+        return attacks;
+    }
+
+    void setPiece(final int pieceIndex, final int coordinate) {
+        final long mask = squareMask(coordinate);
+        this.pieceBitBoards[pieceIndex] |= mask;
+        this.allianceBitBoards[pieceIndex / NUM_PIECE_TYPES] |= mask;
+        this.occupied |= mask;
+    }
+
+    void clearPiece(final int pieceIndex, final int coordinate) {
+        final long mask = ~squareMask(coordinate);
+        this.pieceBitBoards[pieceIndex] &= mask;
+        this.allianceBitBoards[pieceIndex / NUM_PIECE_TYPES] &= mask;
+        this.occupied &= mask;
+    }
+
+    // ==========================================
+    // Bit helpers
+    // ==========================================
+    public static long squareMask(final int coordinate) {
+        return 1L << coordinate;
+    }
+
+    public static int bitCount(final long bitBoard) {
+        return Long.bitCount(bitBoard);
+    }
+
+    /**
+     * Coordinate of the lowest set bit. Callers iterate a set with
+     * {@code for (long b = set; b != 0; b &= b - 1)}.
+     */
+    public static int lowestCoordinate(final long bitBoard) {
+        return Long.numberOfTrailingZeros(bitBoard);
+    }
+}
@@ -10,70 +10,250 @@ import java.util.*;
 
 public class Board {
 
-    private final List<Tile> gameBoard;
+    private static final Tile[] EMPTY_GAME_BOARD = createEmptyGameBoard();
+
+    private final Tile[] gameBoard;
+    private final BitBoard bitBoard;
     private final Collection<Piece> whitePieces;
     private final Collection<Piece> blackPieces;
     private final WhitePlayer whitePlayer;
     private final BlackPlayer blackPlayer;
     private final Player currentPlayer;
     private final Pawn enPassantPawn;
+    private final long whiteAttackMap;
+    private final long blackAttackMap;
+    private final int castlingRights;
+    private final long zobristKey;
+    // Memoized on first access. Boards are shared with search threads, so the
+    // memos are volatile; two threads may both compute one, with equal results.
+    private volatile PieceMoveSet whiteMoveSet;
+    private volatile PieceMoveSet blackMoveSet;
+    // Move sets of an earlier board and the tiles changed since, to update incrementally.
+    // Only a hint: a thread that finds them cleared generates the moves in full.
+    private PieceMoveSet inheritedWhiteMoveSet;
+    private PieceMoveSet inheritedBlackMoveSet;
+    private long whiteChangesSinceInherited;
+    private long blackChangesSinceInherited;
+    private volatile Collection<Move> whitePieceMoves;
+    private volatile Collection<Move> blackPieceMoves;
+    private volatile GameState gameState;
 
-    private Board(Builder builder) {
-        this.gameBoard = createGameBoard(builder);
-        this.whitePieces = calculateActivePieces(gameBoard, Alliance.WHITE);
-        this.blackPieces = calculateActivePieces(gameBoard, Alliance.BLACK);
+    // Beyond this many changed tiles most pieces would be regenerated anyway
+    private static final int MAX_INHERITED_CHANGES = 16;
+
+    private static volatile MoveGeneration moveGeneration = MoveGeneration.FULL;
 
-        final Collection<Move> whiteLegalMoves = calculateLegalMoves(this.whitePieces);
-        final Collection<Move> blackLegalMoves = calculateLegalMoves(this.blackPieces);
+    private Board(Builder builder) {
+        // The board takes over the builder's arrays; the builder copies them before any further change
+        builder.shared = true;
+        this.bitBoard = builder.bitBoard;
+        this.gameBoard = builder.gameBoard;
+        final List<Piece> whitePieces = new ArrayList<>(BoardUtils.NUM_TILES_PER_ROW * 2);
+        final List<Piece> blackPieces = new ArrayList<>(BoardUtils.NUM_TILES_PER_ROW * 2);
+        for (long pieces = this.bitBoard.getOccupied(); pieces != 0; pieces &= pieces - 1) {
+            final Piece piece = this.gameBoard[BitBoard.lowestCoordinate(pieces)].getPiece();
+            (piece.getPieceAlliance().isWhite() ? whitePieces : blackPieces).add(piece);
+        }
+        this.whitePieces = Collections.unmodifiableList(whitePieces);
+        this.blackPieces = Collections.unmodifiableList(blackPieces);
+        this.whiteAttackMap = this.bitBoard.getAttackedTiles(Alliance.WHITE);
+        this.blackAttackMap = this.bitBoard.getAttackedTiles(Alliance.BLACK);
 
-        // IMPORTANT: pass the correct move lists to each player (playerMoves, opponentMoves)
-        this.whitePlayer = new WhitePlayer(this, whiteLegalMoves, blackLegalMoves);
-        this.blackPlayer = new BlackPlayer(this, blackLegalMoves, whiteLegalMoves);
+        // Players are cheap to build: their move lists, check status and castles
+        // are computed on first access, so boards that are only evaluated never pay for them.
+        this.whitePlayer = new WhitePlayer(this);
+        this.blackPlayer = new BlackPlayer(this);
 
         this.currentPlayer = builder.nextMoveMaker.choosePlayer(whitePlayer, blackPlayer);
         this.enPassantPawn = builder.enPassantPawn;
+        this.castlingRights = CastlingRights.calculate(this);
+
+        // Boards made by a move arrive with the key already updated from the previous board
+        this.zobristKey = builder.zobristKey != null ? builder.zobristKey : Zobrist.calculateKey(this);
+        assert this.zobristKey == Zobrist.calculateKey(this) : "Incremental Zobrist key is out of date";
+
+        if (builder.source != null && moveGeneration != MoveGeneration.FULL) {
+            inheritMoveSets(builder.source, builder.changedTiles);
+        }
+    }
+
+    /**
+     * How boards made by a move build their piece moves. FULL is the
+     * default: on the Board API perft suite copying the untouched pieces'
+     * moves costs more than it saves.
+     */
+    public enum MoveGeneration {
+        /** Every piece's moves are generated from scratch. */
+        FULL,
+        /** Moves of pieces the moves since an earlier board left alone are copied from it. */
+        INCREMENTAL,
+        /** Incremental, checked against full generation; a difference throws IllegalStateException. */
+        VERIFY
+    }
+
+    public static MoveGeneration getMoveGeneration() {
+        return moveGeneration;
+    }
+
+    public static void setMoveGeneration(final MoveGeneration generation) {
+        moveGeneration = generation;
+    }
+
+    /**
+     * Remembers the source board's move sets, or the ones it inherited
+     * itself if it never built its own, with the tiles changed since. Each
+     * board's en passant target counts as changed, since pawns next to it
+     * gain or lose a capture.
+     */
+    private void inheritMoveSets(final Board source, final long changedTiles) {
+        final long changed = changedTiles | enPassantTarget(source.enPassantPawn) | enPassantTarget(this.enPassantPawn);
+        if (source.whiteMoveSet != null) {
+            this.inheritedWhiteMoveSet = source.whiteMoveSet;
+            this.whiteChangesSinceInherited = changed;
+        } else if (source.inheritedWhiteMoveSet != null &&
+                BitBoard.bitCount(source.whiteChangesSinceInherited | changed) <= MAX_INHERITED_CHANGES) {
+            this.inheritedWhiteMoveSet = source.inheritedWhiteMoveSet;
+            this.whiteChangesSinceInherited = source.whiteChangesSinceInherited | changed;
+        }
+        if (source.blackMoveSet != null) {
+            this.inheritedBlackMoveSet = source.blackMoveSet;
+            this.blackChangesSinceInherited = changed;
+        } else if (source.inheritedBlackMoveSet != null &&
+                BitBoard.bitCount(source.blackChangesSinceInherited | changed) <= MAX_INHERITED_CHANGES) {
+            this.inheritedBlackMoveSet = source.inheritedBlackMoveSet;
+            this.blackChangesSinceInherited = source.blackChangesSinceInherited | changed;
+        }
+    }
+
+    private static long enPassantTarget(final Pawn enPassantPawn) {
+        return enPassantPawn == null ? 0L : BitBoard.squareMask(
+                enPassantPawn.getPiecePosition() - enPassantPawn.getPieceAlliance().getDirection() * BoardUtils.NUM_TILES_PER_ROW);
     }
 
     public Tile getTile(final int coordinate) {
-        return gameBoard.get(coordinate);
+        return this.gameBoard[coordinate];
     }
 
+    public BitBoard getBitBoard() { return bitBoard; }
     public Collection<Piece> getWhitePieces() { return whitePieces; }
     public Collection<Piece> getBlackPieces() { return blackPieces; }
     public Player whitePlayer() { return whitePlayer; }
     public Player blackPlayer() { return blackPlayer; }
     public Player currentPlayer() { return currentPlayer; }
     public Pawn getEnPassantPawn() { return enPassantPawn; }
+    public int getCastlingRights() { return castlingRights; }
+
+    /**
+     * 64-bit hash of the position: placement, side to move, castling rights
+     * and en passant pawn. Equal positions have equal keys.
+     */
+    public long getZobristKey() { return zobristKey; }
 
-    private static List<Tile> createGameBoard(final Builder builder) {
+    private static Tile[] createEmptyGameBoard() {
         final Tile[] tiles = new Tile[BoardUtils.NUM_TILES];
         for (int i = 0; i < BoardUtils.NUM_TILES; i++) {
-            tiles[i] = Tile.createTile(i, builder.boardConfig.get(i));
+            tiles[i] = Tile.createTile(i, null);
         }
-        return Collections.unmodifiableList(Arrays.asList(tiles));
+        return tiles;
     }
 
-    private static Collection<Piece> calculateActivePieces(final List<Tile> gameBoard, final Alliance alliance) {
-        final List<Piece> activePieces = new ArrayList<>();
-        for (Tile tile : gameBoard) {
-            if (tile.isTileOccupied()) {
-                Piece piece = tile.getPiece();
-                if (piece.getPieceAlliance() == alliance) {
-                    activePieces.add(piece);
-                }
+    /**
+     * Piece index (see BitBoard.pieceIndex) on the tile, or PackedMove.NO_PIECE if empty.
+     */
+    public int getPieceIndex(final int coordinate) {
+        final Piece piece = this.gameBoard[coordinate].getPiece();
+        return piece == null ? PackedMove.NO_PIECE : piece.getPieceIndex();
+    }
+
+    /**
+     * Packed moves of the alliance's pieces, castles excluded. Computed on
+     * first access and memoized; attack tests read these directly. Boards
+     * made by a move update an earlier board's moves when they can, see
+     * MoveGeneration.
+     */
+    public MoveList getPackedPieceMoves(final Alliance alliance) {
+        if (alliance.isWhite()) {
+            PieceMoveSet moveSet = this.whiteMoveSet;
+            if (moveSet == null) {
+                moveSet = calculateMoveSet(this.whitePieces, this.inheritedWhiteMoveSet, this.whiteChangesSinceInherited);
+                this.whiteMoveSet = moveSet;
+                this.inheritedWhiteMoveSet = null;
+            }
+            return moveSet.getMoves();
+        }
+        PieceMoveSet moveSet = this.blackMoveSet;
+        if (moveSet == null) {
+            moveSet = calculateMoveSet(this.blackPieces, this.inheritedBlackMoveSet, this.blackChangesSinceInherited);
+            this.blackMoveSet = moveSet;
+            this.inheritedBlackMoveSet = null;
+        }
+        return moveSet.getMoves();
+    }
+
+    /**
+     * Move objects for the alliance's pieces, castles excluded. Decoded from
+     * the packed moves on first access and memoized.
+     */
+    public Collection<Move> getPieceMoves(final Alliance alliance) {
+        if (alliance.isWhite()) {
+            Collection<Move> moves = this.whitePieceMoves;
+            if (moves == null) {
+                moves = createMoves(getPackedPieceMoves(alliance));
+                this.whitePieceMoves = moves;
             }
+            return moves;
         }
-        return Collections.unmodifiableList(activePieces);
+        Collection<Move> moves = this.blackPieceMoves;
+        if (moves == null) {
+            moves = createMoves(getPackedPieceMoves(alliance));
+            this.blackPieceMoves = moves;
+        }
+        return moves;
     }
 
-    private Collection<Move> calculateLegalMoves(final Collection<Piece> pieces) {
-        final List<Move> legalMoves = new ArrayList<>();
-        for (Piece piece : pieces) {
-            legalMoves.addAll(piece.calculateLegalMoves(this));
+    private PieceMoveSet calculateMoveSet(final Collection<Piece> pieces, final PieceMoveSet inherited,
+                                          final long changedTiles) {
+        final MoveGeneration generation = moveGeneration;
+        if (inherited == null || generation == MoveGeneration.FULL) {
+            return PieceMoveSet.generate(this, pieces);
+        }
+        final PieceMoveSet updated = PieceMoveSet.update(this, pieces, inherited, changedTiles);
+        if (generation == MoveGeneration.VERIFY) {
+            final MoveList expected = PieceMoveSet.generate(this, pieces).getMoves();
+            if (!Arrays.equals(expected.toArray(), updated.getMoves().toArray())) {
+                throw new IllegalStateException("Incremental moves differ from full generation, board key " +
+                        Long.toHexString(this.zobristKey) + ": expected " + expected.size() + " moves, got " +
+                        updated.getMoves().size());
+            }
+        }
+        return updated;
+    }
+
+    private Collection<Move> createMoves(final MoveList moves) {
+        final List<Move> legalMoves = new ArrayList<>(moves.size());
+        for (int i = 0; i < moves.size(); i++) {
+            legalMoves.add(Move.MoveFactory.createMove(this, moves.get(i)));
         }
         return Collections.unmodifiableList(legalMoves);
     }
 
+    /**
+     * Forgets the memoized move lists of this board and its players, for
+     * boards kept only as history. They hold the board's Move objects, which
+     * are most of its footprint; anything that needs them again rebuilds
+     * them on access.
+     */
+    public void releaseMoveLists() {
+        this.whiteMoveSet = null;
+        this.blackMoveSet = null;
+        this.inheritedWhiteMoveSet = null;
+        this.inheritedBlackMoveSet = null;
+        this.whitePieceMoves = null;
+        this.blackPieceMoves = null;
+        this.whitePlayer.releaseLegalMoves();
+        this.blackPlayer.releaseLegalMoves();
+    }
+
     public Iterable<Move> getAllLegalMoves() {
         List<Move> allMoves = new ArrayList<>();
         allMoves.addAll(this.whitePlayer.getLegalMoves());
@@ -81,93 +261,165 @@ public class Board {
         return Collections.unmodifiableList(allMoves);
     }
 
+    /**
+     * Tiles attacked by the alliance's pieces, built with the board from its
+     * bitboards. Check and castling tests are a mask test against it.
+     */
+    public long getAttackMap(final Alliance alliance) {
+        return alliance.isWhite() ? this.whiteAttackMap : this.blackAttackMap;
+    }
+
+    /**
+     * Is the tile attacked by the given alliance? Answered by reverse lookup
+     * from the tile, without generating any moves.
+     */
+    public boolean isSquareAttacked(final int coordinate, final Alliance attacker) {
+        return this.bitBoard.isAttacked(coordinate, attacker);
+    }
+
     /**
      * Is the given alliance's king in check?
      */
     public boolean isKingInCheck(final Alliance alliance) {
-        final Player player = alliance.isWhite() ? whitePlayer : blackPlayer;
-        final King king = player.getPlayerKing();
-        if (king == null) return false; // defensive
-        final Collection<Move> opponentMoves = player.getOpponent().getLegalMoves();
-        for (final Move move : opponentMoves) {
-            if (move.getDestinationCoordinate() == king.getPiecePosition()) {
-                return true;
-            }
-        }
-        return false;
+        return (getAttackMap(alliance.getOpponent()) & this.bitBoard.getPieces(alliance, Piece.PieceType.KING)) != 0;
     }
 
     /**
      * Is the given alliance checkmated?
      */
     public boolean isCheckMate(final Alliance alliance) {
+        if (alliance == this.currentPlayer.getAlliance()) {
+            return getGameState() == GameState.CHECKMATE;
+        }
         final Player player = alliance.isWhite() ? whitePlayer : blackPlayer;
-        // if not in check, cannot be checkmate
-        if (!player.isInCheck()) return false;
-        // if any legal move avoids check, not mate
-        for (final Move move : player.getLegalMoves()) {
-            final Board transitioned = move.execute();
-            if (!transitioned.isKingInCheck(alliance)) {
-                return false;
-            }
+        return player.isInCheckMate();
+    }
+
+    /**
+     * Check, mate and stalemate status of the player to move. Worked out on
+     * first access and memoized, so the GUI, status messages and the engine
+     * share one analysis per position.
+     */
+    public GameState getGameState() {
+        GameState state = this.gameState;
+        if (state == null) {
+            state = calculateGameState();
+            this.gameState = state;
+        }
+        return state;
+    }
+
+    private GameState calculateGameState() {
+        final boolean inCheck = this.currentPlayer.isInCheck();
+        if (this.currentPlayer.hasEscapeMoves()) {
+            return inCheck ? GameState.CHECK : GameState.ONGOING;
         }
-        return true;
+        return inCheck ? GameState.CHECKMATE : GameState.STALEMATE;
     }
 
     /**
      * Human-friendly status message; call after a move to display status.
      */
     public String gameStatusMessage() {
-        // check opponent: after a move, board.currentPlayer() is the player to move
-        // we will check current player (the one to move) whether they are in check/mate
-        final Alliance current = this.currentPlayer.getAlliance();
-        if (isCheckMate(current)) {
-            // winner is opponent
-            return "Checkmate! Winner: " + this.currentPlayer.getOpponent().getAlliance();
-        }
-        if (isKingInCheck(current)) {
-            return "Check!";
+        // after a move, currentPlayer() is the player to move
+        switch (getGameState()) {
+            case CHECKMATE:
+                // winner is opponent
+                return "Checkmate! Winner: " + this.currentPlayer.getOpponent().getAlliance();
+            case STALEMATE:
+                return "Stalemate!";
+            case CHECK:
+                return "Check!";
+            default:
+                return "OK";
         }
-        return "OK";
     }
 
     public static Board createStandardBoard() {
         Builder builder = new Builder();
 
         // Black pieces
-        builder.setPiece(new Rook(Alliance.BLACK, 0));
-        builder.setPiece(new Knight(Alliance.BLACK, 1));
-        builder.setPiece(new Bishop(Alliance.BLACK, 2));
-        builder.setPiece(new Queen(Alliance.BLACK, 3));
-        builder.setPiece(new King(Alliance.BLACK, 4));
-        builder.setPiece(new Bishop(Alliance.BLACK, 5));
-        builder.setPiece(new Knight(Alliance.BLACK, 6));
-        builder.setPiece(new Rook(Alliance.BLACK, 7));
-        for (int i = 8; i <= 15; i++) builder.setPiece(new Pawn(Alliance.BLACK, i));
+        builder.setPiece(PieceUtils.getRook(Alliance.BLACK, 0, true));
+        builder.setPiece(PieceUtils.getKnight(Alliance.BLACK, 1, true));
+        builder.setPiece(PieceUtils.getBishop(Alliance.BLACK, 2, true));
+        builder.setPiece(PieceUtils.getQueen(Alliance.BLACK, 3, true));
+        builder.setPiece(PieceUtils.getKing(Alliance.BLACK, 4, true));
+        builder.setPiece(PieceUtils.getBishop(Alliance.BLACK, 5, true));
+        builder.setPiece(PieceUtils.getKnight(Alliance.BLACK, 6, true));
+        builder.setPiece(PieceUtils.getRook(Alliance.BLACK, 7, true));
+        for (int i = 8; i <= 15; i++) builder.setPiece(PieceUtils.getPawn(Alliance.BLACK, i, true));
 
         // White pieces
-        for (int i = 48; i <= 55; i++) builder.setPiece(new Pawn(Alliance.WHITE, i));
-        builder.setPiece(new Rook(Alliance.WHITE, 56));
-        builder.setPiece(new Knight(Alliance.WHITE, 57));
-        builder.setPiece(new Bishop(Alliance.WHITE, 58));
-        builder.setPiece(new Queen(Alliance.WHITE, 59));
-        builder.setPiece(new King(Alliance.WHITE, 60));
-        builder.setPiece(new Bishop(Alliance.WHITE, 61));
-        builder.setPiece(new Knight(Alliance.WHITE, 62));
-        builder.setPiece(new Rook(Alliance.WHITE, 63));
+        for (int i = 48; i <= 55; i++) builder.setPiece(PieceUtils.getPawn(Alliance.WHITE, i, true));
+        builder.setPiece(PieceUtils.getRook(Alliance.WHITE, 56, true));
+        builder.setPiece(PieceUtils.getKnight(Alliance.WHITE, 57, true));
+        builder.setPiece(PieceUtils.getBishop(Alliance.WHITE, 58, true));
+        builder.setPiece(PieceUtils.getQueen(Alliance.WHITE, 59, true));
+        builder.setPiece(PieceUtils.getKing(Alliance.WHITE, 60, true));
+        builder.setPiece(PieceUtils.getBishop(Alliance.WHITE, 61, true));
+        builder.setPiece(PieceUtils.getKnight(Alliance.WHITE, 62, true));
+        builder.setPiece(PieceUtils.getRook(Alliance.WHITE, 63, true));
 
         builder.setMoveMaker(Alliance.WHITE);
         return builder.build();
     }
 
+    /**
+     * Collects the tiles and bitboards of a new board. A builder made from a
+     * board starts with that board's placement (no side to move, en passant
+     * pawn or key), shared until the first change, so a move only patches
+     * the tiles it touches. The new board also updates that board's piece
+     * moves for the patched tiles instead of generating them all again.
+     */
     public static class Builder {
-        Map<Integer, Piece> boardConfig = new HashMap<>();
+        Tile[] gameBoard;
+        BitBoard bitBoard;
+        boolean shared;
+        Board source;
+        long changedTiles;
         Alliance nextMoveMaker;
         Pawn enPassantPawn;
+        Long zobristKey;
+
+        public Builder() {
+            this.gameBoard = EMPTY_GAME_BOARD;
+            this.bitBoard = new BitBoard();
+            this.shared = true;
+        }
+
+        public Builder(final Board board) {
+            this.gameBoard = board.gameBoard;
+            this.bitBoard = board.bitBoard;
+            this.shared = true;
+            this.source = board;
+        }
+
+        public Builder setPiece(final Piece piece) {
+            final int coordinate = piece.getPiecePosition();
+            clearPiece(coordinate);
+            this.gameBoard[coordinate] = Tile.createTile(coordinate, piece);
+            this.bitBoard.setPiece(piece.getPieceIndex(), coordinate);
+            return this;
+        }
+
+        public Builder clearPiece(final int coordinate) {
+            if (this.shared) {
+                this.gameBoard = this.gameBoard.clone();
+                this.bitBoard = new BitBoard(this.bitBoard);
+                this.shared = false;
+            }
+            this.changedTiles |= BitBoard.squareMask(coordinate);
+            final Piece piece = this.gameBoard[coordinate].getPiece();
+            if (piece != null) {
+                this.gameBoard[coordinate] = Tile.createTile(coordinate, null);
+                this.bitBoard.clearPiece(piece.getPieceIndex(), coordinate);
+            }
+            return this;
+        }
 
-        public Builder setPiece(Piece piece) { this.boardConfig.put(piece.getPiecePosition(), piece); return this; }
         public Builder setMoveMaker(Alliance alliance) { this.nextMoveMaker = alliance; return this; }
         public Builder setEnPassantPawn(Pawn pawn) { this.enPassantPawn = pawn; return this; }
+        Builder setZobristKey(long key) { this.zobristKey = key; return this; }
         public Board build() { return new Board(this); }
     }
 }
@@ -30,4 +30,25 @@ public class BoardUtils {
     public static int getRow(int position) {
         return position / NUM_TILES_PER_ROW;
     }
+
+    /**
+     * Algebraic name of a tile: coordinate 0 is "a8", 63 is "h1".
+     */
+    public static String getPositionAtCoordinate(final int coordinate) {
+        final char column = (char) ('a' + coordinate % NUM_TILES_PER_ROW);
+        final int rank = NUM_TILES_PER_ROW - coordinate / NUM_TILES_PER_ROW;
+        return String.valueOf(column) + rank;
+    }
+
+    public static int getCoordinateAtPosition(final String position) {
+        if (position.length() != 2) {
+            throw new IllegalArgumentException("Invalid tile: " + position);
+        }
+        final int column = position.charAt(0) - 'a';
+        final int rank = position.charAt(1) - '0';
+        if (column < 0 || column >= NUM_TILES_PER_ROW || rank < 1 || rank > NUM_TILES_PER_ROW) {
+            throw new IllegalArgumentException("Invalid tile: " + position);
+        }
+        return (NUM_TILES_PER_ROW - rank) * NUM_TILES_PER_ROW + column;
+    }
 }
@@ -0,0 +1,74 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.pieces.King;
+import com.chess.engine.pieces.Piece;
+
+import java.util.Arrays;
+
+/**
+ * Castling rights as four bits. Board does not store them; they follow from
+ * whether the king and the corner rooks are still on their first move. A
+ * move clears the rights of every home tile it starts from or lands on.
+ */
+public final class CastlingRights {
+
+    public static final int WHITE_KING_SIDE = 1;
+    public static final int WHITE_QUEEN_SIDE = 2;
+    public static final int BLACK_KING_SIDE = 4;
+    public static final int BLACK_QUEEN_SIDE = 8;
+    public static final int ALL = WHITE_KING_SIDE | WHITE_QUEEN_SIDE | BLACK_KING_SIDE | BLACK_QUEEN_SIDE;
+    public static final int NUM_COMBINATIONS = ALL + 1;
+
+    private static final int WHITE_KING_HOME = 60;
+    private static final int BLACK_KING_HOME = 4;
+    private static final int[] MASKS = initMasks();
+
+    private CastlingRights() {
+        throw new RuntimeException("You cannot instantiate me!");
+    }
+
+    /**
+     * Rights that survive a move from one tile to another.
+     */
+    public static int update(final int rights, final int from, final int to) {
+        return rights & MASKS[from] & MASKS[to];
+    }
+
+    public static int calculate(final Board board) {
+        return calculate(board, Alliance.WHITE, WHITE_KING_HOME, WHITE_KING_SIDE, WHITE_QUEEN_SIDE) |
+                calculate(board, Alliance.BLACK, BLACK_KING_HOME, BLACK_KING_SIDE, BLACK_QUEEN_SIDE);
+    }
+
+    private static int calculate(final Board board, final Alliance alliance, final int kingHome,
+                                 final int kingSide, final int queenSide) {
+        final Piece king = board.getTile(kingHome).getPiece();
+        if (!(king instanceof King) || king.getPieceAlliance() != alliance || !king.isFirstMove()) {
+            return 0;
+        }
+        int rights = 0;
+        if (isUnmovedRook(board.getTile(kingHome + 3).getPiece(), alliance)) {
+            rights |= kingSide;
+        }
+        if (isUnmovedRook(board.getTile(kingHome - 4).getPiece(), alliance)) {
+            rights |= queenSide;
+        }
+        return rights;
+    }
+
+    private static boolean isUnmovedRook(final Piece piece, final Alliance alliance) {
+        return piece != null && piece.getPieceType().isRook() && piece.getPieceAlliance() == alliance && piece.isFirstMove();
+    }
+
+    private static int[] initMasks() {
+        final int[] masks = new int[BoardUtils.NUM_TILES];
+        Arrays.fill(masks, ALL);
+        masks[WHITE_KING_HOME] &= ~(WHITE_KING_SIDE | WHITE_QUEEN_SIDE);
+        masks[WHITE_KING_HOME + 3] &= ~WHITE_KING_SIDE;
+        masks[WHITE_KING_HOME - 4] &= ~WHITE_QUEEN_SIDE;
+        masks[BLACK_KING_HOME] &= ~(BLACK_KING_SIDE | BLACK_QUEEN_SIDE);
+        masks[BLACK_KING_HOME + 3] &= ~BLACK_KING_SIDE;
+        masks[BLACK_KING_HOME - 4] &= ~BLACK_QUEEN_SIDE;
+        return masks;
+    }
+}
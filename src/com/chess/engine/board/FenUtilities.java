@@ -0,0 +1,103 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.pieces.Pawn;
+import com.chess.engine.pieces.Piece;
+import com.chess.engine.pieces.PieceUtils;
+
+/**
+ * Builds boards from Forsyth-Edwards Notation. Board keeps castling rights
+ * as the first-move flags of kings and rooks, so the castling field decides
+ * which of them count as unmoved; pawns on their starting row may jump. The
+ * half-move and full-move counters are accepted but not stored.
+ */
+public final class FenUtilities {
+
+    private FenUtilities() {
+        throw new RuntimeException("You cannot instantiate me!");
+    }
+
+    public static Board createGameFromFEN(final String fenString) {
+        final String[] fields = fenString.trim().split("\\s+");
+        if (fields.length < 4) {
+            throw new IllegalArgumentException("Invalid FEN: " + fenString);
+        }
+        final String castling = fields[2];
+        final Alliance moveMaker = parseMoveMaker(fields[1]);
+
+        final Board.Builder builder = new Board.Builder();
+        final Piece[] pieces = new Piece[BoardUtils.NUM_TILES];
+        int coordinate = 0;
+        for (final char c : fields[0].toCharArray()) {
+            if (c == '/') {
+                continue;
+            }
+            if (Character.isDigit(c)) {
+                coordinate += c - '0';
+                continue;
+            }
+            if (coordinate >= BoardUtils.NUM_TILES) {
+                throw new IllegalArgumentException("Invalid FEN: " + fenString);
+            }
+            pieces[coordinate] = createPiece(c, coordinate, castling);
+            builder.setPiece(pieces[coordinate]);
+            coordinate++;
+        }
+        if (coordinate != BoardUtils.NUM_TILES) {
+            throw new IllegalArgumentException("Invalid FEN: " + fenString);
+        }
+
+        // The en passant field names the tile jumped over; the pawn stands one row past it
+        if (!fields[3].equals("-")) {
+            final int target = BoardUtils.getCoordinateAtPosition(fields[3]);
+            final Piece pawn = pieces[target - moveMaker.getDirection() * BoardUtils.NUM_TILES_PER_ROW];
+            if (!(pawn instanceof Pawn) || pawn.getPieceAlliance() == moveMaker) {
+                throw new IllegalArgumentException("Invalid en passant tile: " + fields[3]);
+            }
+            builder.setEnPassantPawn((Pawn) pawn);
+        }
+
+        builder.setMoveMaker(moveMaker);
+        return builder.build();
+    }
+
+    private static Alliance parseMoveMaker(final String field) {
+        if (field.equals("w")) {
+            return Alliance.WHITE;
+        }
+        if (field.equals("b")) {
+            return Alliance.BLACK;
+        }
+        throw new IllegalArgumentException("Invalid side to move: " + field);
+    }
+
+    private static Piece createPiece(final char c, final int coordinate, final String castling) {
+        final Alliance alliance = Character.isUpperCase(c) ? Alliance.WHITE : Alliance.BLACK;
+        final int row = BoardUtils.getRow(coordinate);
+        switch (Character.toLowerCase(c)) {
+            case 'p':
+                return PieceUtils.getPawn(alliance, coordinate, alliance.isWhite() ? row == 6 : row == 1);
+            case 'n':
+                return PieceUtils.getKnight(alliance, coordinate, true);
+            case 'b':
+                return PieceUtils.getBishop(alliance, coordinate, true);
+            case 'r':
+                return PieceUtils.getRook(alliance, coordinate, isUnmovedRook(alliance, coordinate, castling));
+            case 'q':
+                return PieceUtils.getQueen(alliance, coordinate, true);
+            case 'k':
+                return PieceUtils.getKing(alliance, coordinate, alliance.isWhite()
+                        ? castling.indexOf('K') >= 0 || castling.indexOf('Q') >= 0
+                        : castling.indexOf('k') >= 0 || castling.indexOf('q') >= 0);
+            default:
+                throw new IllegalArgumentException("Invalid piece: " + c);
+        }
+    }
+
+    private static boolean isUnmovedRook(final Alliance alliance, final int coordinate, final String castling) {
+        if (alliance.isWhite()) {
+            return (coordinate == 63 && castling.indexOf('K') >= 0) || (coordinate == 56 && castling.indexOf('Q') >= 0);
+        }
+        return (coordinate == 7 && castling.indexOf('k') >= 0) || (coordinate == 0 && castling.indexOf('q') >= 0);
+    }
+}
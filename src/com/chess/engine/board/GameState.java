@@ -0,0 +1,33 @@
+package com.chess.engine.board;
+
+/**
+ * Where the game stands for the side to move on a board, see
+ * Board.getGameState.
+ */
+public enum GameState {
+    ONGOING {
+        @Override
+        public boolean isGameOver() {
+            return false;
+        }
+    },
+    CHECK {
+        @Override
+        public boolean isGameOver() {
+            return false;
+        }
+    },
+    CHECKMATE {
+        @Override
+        public boolean isGameOver() {
+            return true;
+        }
+    },
+    STALEMATE {
+        @Override
+        public boolean isGameOver() {
+            return true;
+        }
+    };
+    public abstract boolean isGameOver();
+}
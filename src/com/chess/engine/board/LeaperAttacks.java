@@ -0,0 +1,57 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+
+/**
+ * Per-tile attack sets for the pieces that jump rather than slide: knights,
+ * kings and pawn captures (by alliance). Built once at class load from row and
+ * column arithmetic, so no offset can wrap around a board edge.
+ */
+public final class LeaperAttacks {
+
+    private static final int[][] KNIGHT_STEPS = {{-2, -1}, {-2, 1}, {-1, -2}, {-1, 2}, {1, -2}, {1, 2}, {2, -1}, {2, 1}};
+    private static final int[][] KING_STEPS = {{-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}};
+
+    private static final long[] KNIGHT_ATTACKS = initAttacks(KNIGHT_STEPS);
+    private static final long[] KING_ATTACKS = initAttacks(KING_STEPS);
+    private static final long[][] PAWN_ATTACKS = {
+            initAttacks(new int[][]{{Alliance.WHITE.getDirection(), -1}, {Alliance.WHITE.getDirection(), 1}}),
+            initAttacks(new int[][]{{Alliance.BLACK.getDirection(), -1}, {Alliance.BLACK.getDirection(), 1}})
+    };
+
+    private LeaperAttacks() {
+        throw new RuntimeException("You cannot instantiate me!");
+    }
+
+    public static long knightAttacks(final int coordinate) {
+        return KNIGHT_ATTACKS[coordinate];
+    }
+
+    public static long kingAttacks(final int coordinate) {
+        return KING_ATTACKS[coordinate];
+    }
+
+    /**
+     * Tiles a pawn of the given alliance standing on coordinate attacks.
+     */
+    public static long pawnAttacks(final Alliance alliance, final int coordinate) {
+        return PAWN_ATTACKS[alliance.ordinal()][coordinate];
+    }
+
+    private static long[] initAttacks(final int[][] steps) {
+        final long[] attacks = new long[BoardUtils.NUM_TILES];
+        for (int coordinate = 0; coordinate < BoardUtils.NUM_TILES; coordinate++) {
+            final int row = coordinate / BoardUtils.NUM_TILES_PER_ROW;
+            final int column = coordinate % BoardUtils.NUM_TILES_PER_ROW;
+            for (final int[] step : steps) {
+                final int targetRow = row + step[0];
+                final int targetColumn = column + step[1];
+                if (targetRow >= 0 && targetRow < BoardUtils.NUM_TILES_PER_ROW &&
+                        targetColumn >= 0 && targetColumn < BoardUtils.NUM_TILES_PER_ROW) {
+                    attacks[coordinate] |= BitBoard.squareMask(targetRow * BoardUtils.NUM_TILES_PER_ROW + targetColumn);
+                }
+            }
+        }
+        return attacks;
+    }
+}
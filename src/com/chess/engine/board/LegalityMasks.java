@@ -0,0 +1,141 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.pieces.Piece;
+
+/**
+ * Checkers and pinned pieces of one side, worked out once per position so
+ * that generated moves can be kept or dropped without playing them:
+ *
+ * <ul>
+ *   <li>in double check only king moves survive;</li>
+ *   <li>in single check other pieces must capture the checker or block;</li>
+ *   <li>a pinned piece may only move along the line through its king;</li>
+ *   <li>the king may not step onto a tile attacked once it has left its own.</li>
+ * </ul>
+ *
+ * En passant, which can uncover an attack along a row, is checked by lifting
+ * both pawns off the occupancy. Instances are mutable so that the search can
+ * reuse one instead of allocating per node.
+ */
+public final class LegalityMasks {
+
+    private BitBoard bitBoard;
+    private Alliance alliance;
+    private int kingCoordinate;
+    private long checkers;
+    private long checkMask;
+    private long pinned;
+
+    public LegalityMasks() {
+    }
+
+    public LegalityMasks(final BitBoard bitBoard, final Alliance alliance) {
+        compute(bitBoard, alliance);
+    }
+
+    public void compute(final BitBoard bitBoard, final Alliance alliance) {
+        this.bitBoard = bitBoard;
+        this.alliance = alliance;
+        this.kingCoordinate = bitBoard.getKingCoordinate(alliance);
+
+        final Alliance them = alliance.getOpponent();
+        final long occupied = bitBoard.getOccupied();
+        final long own = bitBoard.getAlliancePieces(alliance);
+        this.checkers = bitBoard.getAttackers(this.kingCoordinate, occupied) & bitBoard.getAlliancePieces(them);
+
+        if (this.checkers == 0) {
+            this.checkMask = -1L;
+        } else if ((this.checkers & (this.checkers - 1)) == 0) {
+            this.checkMask = this.checkers | MagicBitBoards.between(this.kingCoordinate, BitBoard.lowestCoordinate(this.checkers));
+        } else {
+            this.checkMask = 0L;
+        }
+
+        // Pinners are enemy sliders that would attack the king if our own pieces were transparent
+        final long queens = bitBoard.getPieces(them, Piece.PieceType.QUEEN);
+        final long pinners =
+                (MagicBitBoards.rookAttacks(this.kingCoordinate, occupied & ~own) &
+                        (bitBoard.getPieces(them, Piece.PieceType.ROOK) | queens)) |
+                (MagicBitBoards.bishopAttacks(this.kingCoordinate, occupied & ~own) &
+                        (bitBoard.getPieces(them, Piece.PieceType.BISHOP) | queens));
+        long pinnedPieces = 0L;
+        for (long remaining = pinners; remaining != 0; remaining &= remaining - 1) {
+            final long blockers = MagicBitBoards.between(this.kingCoordinate, BitBoard.lowestCoordinate(remaining)) & occupied;
+            if ((blockers & (blockers - 1)) == 0 && (blockers & own) != 0) {
+                pinnedPieces |= blockers;
+            }
+        }
+        this.pinned = pinnedPieces;
+    }
+
+    public long getCheckers() {
+        return this.checkers;
+    }
+
+    public boolean isInCheck() {
+        return this.checkers != 0;
+    }
+
+    public boolean isDoubleCheck() {
+        return (this.checkers & (this.checkers - 1)) != 0;
+    }
+
+    public long getPinned() {
+        return this.pinned;
+    }
+
+    /**
+     * Narrows a non-king piece's targets to the ones that answer a check and
+     * respect a pin.
+     */
+    public long restrictTargets(final int from, final long targets) {
+        long legalTargets = targets & this.checkMask;
+        if ((this.pinned & BitBoard.squareMask(from)) != 0) {
+            legalTargets &= MagicBitBoards.line(this.kingCoordinate, from);
+        }
+        return legalTargets;
+    }
+
+    /**
+     * May the king step to the tile? Tested with the king lifted off the
+     * board, so it cannot hide behind itself along a checking slider's ray.
+     */
+    public boolean isKingMoveSafe(final int destination) {
+        return !this.bitBoard.isAttacked(destination, this.alliance.getOpponent(),
+                this.bitBoard.getOccupied() & ~BitBoard.squareMask(this.kingCoordinate));
+    }
+
+    /**
+     * Plays the capture on the occupancy alone and asks whether anything of
+     * the opponent's still reaches the king.
+     */
+    public boolean isEnPassantLegal(final int from, final int to, final int capturedCoordinate) {
+        final long occupied = (this.bitBoard.getOccupied() & ~BitBoard.squareMask(from) &
+                ~BitBoard.squareMask(capturedCoordinate)) | BitBoard.squareMask(to);
+        return (this.bitBoard.getAttackers(this.kingCoordinate, occupied) &
+                this.bitBoard.getAlliancePieces(this.alliance.getOpponent())) == 0;
+    }
+
+    /**
+     * Full legality test for a pseudo-legal packed move of this side.
+     * Castles are expected to have had their path checked by the generator.
+     */
+    public boolean isLegal(final int move) {
+        final int from = PackedMove.getFrom(move);
+        final int to = PackedMove.getTo(move);
+        if (from == this.kingCoordinate) {
+            if (PackedMove.getFlag(move) == PackedMove.FLAG_CASTLE && isInCheck()) {
+                return false;
+            }
+            return isKingMoveSafe(to);
+        }
+        if (isDoubleCheck()) {
+            return false;
+        }
+        if (PackedMove.getFlag(move) == PackedMove.FLAG_EN_PASSANT) {
+            return isEnPassantLegal(from, to, to - this.alliance.getDirection() * 8);
+        }
+        return (restrictTargets(from, BitBoard.squareMask(to))) != 0;
+    }
+}
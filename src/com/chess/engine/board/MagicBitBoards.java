@@ -0,0 +1,301 @@
+package com.chess.engine.board;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Magic-bitboard attack tables for the sliding pieces. A slider's full attack
+ * set is one table lookup: the relevant occupancy bits are multiplied by a
+ * per-square magic number and the top bits of the product index the table.
+ */
+public final class MagicBitBoards {
+
+    private static final int[] ROOK_DIRECTIONS = {-8, -1, 1, 8};
+    private static final int[] BISHOP_DIRECTIONS = {-9, -7, 7, 9};
+    private static final long MAGIC_SEED = 0x5DEECE66DL;
+
+    // The magics the search below finds from MAGIC_SEED, so that class
+    // loading only has to fill the tables. Print them again with main().
+    private static final long[] PRECOMPUTED_ROOK_MAGICS = {
+            0x0A80001080244000L, 0x8440049000200240L, 0xA080200080100008L, 0x4300086205001000L,
+            0x66002004700A0008L, 0x3200081001040200L, 0x3080008002000100L, 0x0E00004081082204L,
+            0x1400800080304000L, 0x1020401000200040L, 0x4000801000802000L, 0x0002000C20401200L,
+            0x0020800400800800L, 0x0080800400800200L, 0x4004001008020481L, 0x0140800040800100L,
+            0x00C0828000204000L, 0x0040010020408901L, 0x0841010040200010L, 0x240012000A420021L,
+            0x1200808004000800L, 0x0002010100040008L, 0x1402030100020004L, 0x02D0820000840041L,
+            0x2000400080208004L, 0x21A0008080400028L, 0x0546004200188020L, 0x0430002100110009L,
+            0x0A08000404004020L, 0x8002010180800400L, 0x4608014400029008L, 0x0209010200008044L,
+            0x4040400081800220L, 0x1002400081802000L, 0x8B00200080801000L, 0x0408000880801002L,
+            0x4108020040400400L, 0x2002000802001004L, 0x4420080204001001L, 0x1068059242000104L,
+            0x0400804002218000L, 0x02002010044A4000L, 0x8020020400101000L, 0x00021200200A0040L,
+            0x0042000804120020L, 0x0006004510420008L, 0x0A28810208440050L, 0x0108290040860004L,
+            0x0000800440002480L, 0x0020008040006180L, 0x8082500260008480L, 0x4008021000800880L,
+            0x0000100408010100L, 0x0200800200040080L, 0x4080021008410400L, 0x0100801100006080L,
+            0x2080008020401101L, 0x2000110022008842L, 0x2841002000440811L, 0x2300100104A10009L,
+            0x0002000410200902L, 0x000100020804000BL, 0x0212000084014802L, 0x000020430085240AL
+    };
+
+    private static final long[] PRECOMPUTED_BISHOP_MAGICS = {
+            0x0421204200802080L, 0x80A0082200604000L, 0x0404040C10400024L, 0x00B4410420200840L,
+            0x0254042200000040L, 0x1220880440406020L, 0x1224420221200000L, 0x0300202108384020L,
+            0x0000410421244100L, 0x4404080838004440L, 0x4300424401002000L, 0x0808440404822002L,
+            0x020C440420800000L, 0x01B8120804040028L, 0x0002020110021003L, 0x0000162409041000L,
+            0x5840000704040409L, 0x0004507050420840L, 0x00B0100443020010L, 0x0020210202004140L,
+            0x0018100101400000L, 0x0001030200822101L, 0x18041C02088C0480L, 0x0000800900880180L,
+            0x0020208952020201L, 0x0101206008020402L, 0x0004100002082840L, 0x4440040002010910L,
+            0x0002840202802004L, 0x000802002491C400L, 0x8202004000880800L, 0x0002002200808800L,
+            0x0001200801101000L, 0x048814100424F100L, 0x0004A0B000080080L, 0x2032200800010104L,
+            0x0010008200002200L, 0x08600B020A010084L, 0x2110120048409400L, 0x0228020081042088L,
+            0x0610A82010020800L, 0x6002421005001089L, 0x1441010801080200L, 0x6200620124000600L,
+            0x0006840408218400L, 0x0002200409002020L, 0x0120088230840042L, 0x133000D081000080L,
+            0x80C6010148410000L, 0x8002010456026C02L, 0x82000020A4100000L, 0x1002010084041220L,
+            0x0200608460820080L, 0x201044081818434CL, 0x0090101001006100L, 0x4049106400802000L,
+            0x0002210130100200L, 0x0000008410821000L, 0x0000020A06010480L, 0x0420040080840400L,
+            0x8401000010020203L, 0x9410080890101082L, 0x0000202011214500L, 0x0010122848042040L
+    };
+
+    private static final long[] ROOK_MASKS = new long[BoardUtils.NUM_TILES];
+    private static final long[] ROOK_MAGICS = new long[BoardUtils.NUM_TILES];
+    private static final int[] ROOK_SHIFTS = new int[BoardUtils.NUM_TILES];
+    private static final int[] ROOK_OFFSETS = new int[BoardUtils.NUM_TILES];
+    private static final long[] ROOK_ATTACKS;
+
+    private static final long[] BISHOP_MASKS = new long[BoardUtils.NUM_TILES];
+    private static final long[] BISHOP_MAGICS = new long[BoardUtils.NUM_TILES];
+    private static final int[] BISHOP_SHIFTS = new int[BoardUtils.NUM_TILES];
+    private static final int[] BISHOP_OFFSETS = new int[BoardUtils.NUM_TILES];
+    private static final long[] BISHOP_ATTACKS;
+
+    // Indexed by from * 64 + to
+    private static final long[] BETWEEN = new long[BoardUtils.NUM_TILES * BoardUtils.NUM_TILES];
+    private static final long[] LINE = new long[BoardUtils.NUM_TILES * BoardUtils.NUM_TILES];
+
+    static {
+        final Random random = new Random(MAGIC_SEED);
+        ROOK_ATTACKS = initMagics(ROOK_DIRECTIONS, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_OFFSETS,
+                PRECOMPUTED_ROOK_MAGICS, random);
+        BISHOP_ATTACKS = initMagics(BISHOP_DIRECTIONS, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_OFFSETS,
+                PRECOMPUTED_BISHOP_MAGICS, random);
+        initLines();
+        assert selfCheck() : "Magic attack tables disagree with the ray-walk generator";
+    }
+
+    private MagicBitBoards() {
+        throw new RuntimeException("You cannot instantiate me!");
+    }
+
+    /**
+     * Searches the magics from scratch and prints them as the precomputed
+     * arrays above, for when the masks or the seed change.
+     */
+    public static void main(final String[] args) {
+        final Random random = new Random(MAGIC_SEED);
+        printMagics("PRECOMPUTED_ROOK_MAGICS", ROOK_DIRECTIONS, random);
+        printMagics("PRECOMPUTED_BISHOP_MAGICS", BISHOP_DIRECTIONS, random);
+    }
+
+    private static void printMagics(final String name, final int[] directions, final Random random) {
+        final long[] masks = new long[BoardUtils.NUM_TILES];
+        final long[] magics = new long[BoardUtils.NUM_TILES];
+        final int[] shifts = new int[BoardUtils.NUM_TILES];
+        final int[] offsets = new int[BoardUtils.NUM_TILES];
+        initMagics(directions, masks, magics, shifts, offsets, new long[BoardUtils.NUM_TILES], random);
+        final StringBuilder source = new StringBuilder("    private static final long[] " + name + " = {\n");
+        for (int coordinate = 0; coordinate < BoardUtils.NUM_TILES; coordinate++) {
+            source.append(coordinate % 4 == 0 ? "            " : " ")
+                    .append(String.format("0x%016XL", magics[coordinate]))
+                    .append(coordinate == BoardUtils.NUM_TILES - 1 ? "\n" : coordinate % 4 == 3 ? ",\n" : ",");
+        }
+        System.out.println(source.append("    };"));
+    }
+
+    public static long rookAttacks(final int coordinate, final long occupied) {
+        return ROOK_ATTACKS[ROOK_OFFSETS[coordinate] +
+                (int) (((occupied & ROOK_MASKS[coordinate]) * ROOK_MAGICS[coordinate]) >>> ROOK_SHIFTS[coordinate])];
+    }
+
+    public static long bishopAttacks(final int coordinate, final long occupied) {
+        return BISHOP_ATTACKS[BISHOP_OFFSETS[coordinate] +
+                (int) (((occupied & BISHOP_MASKS[coordinate]) * BISHOP_MAGICS[coordinate]) >>> BISHOP_SHIFTS[coordinate])];
+    }
+
+    public static long queenAttacks(final int coordinate, final long occupied) {
+        return rookAttacks(coordinate, occupied) | bishopAttacks(coordinate, occupied);
+    }
+
+    /**
+     * Tiles strictly between two tiles on a shared row, column or diagonal;
+     * empty if they are not aligned.
+     */
+    public static long between(final int first, final int second) {
+        return BETWEEN[first * BoardUtils.NUM_TILES + second];
+    }
+
+    /**
+     * The whole row, column or diagonal through two aligned tiles, edge to
+     * edge; empty if they are not aligned. Pinned pieces may only move along it.
+     */
+    public static long line(final int first, final int second) {
+        return LINE[first * BoardUtils.NUM_TILES + second];
+    }
+
+    /**
+     * Compares every table entry against the ray-walk generator, for every
+     * subset of every square's relevant occupancy. Runs at class load when
+     * assertions are enabled.
+     */
+    public static boolean selfCheck() {
+        for (int coordinate = 0; coordinate < BoardUtils.NUM_TILES; coordinate++) {
+            if (!selfCheck(coordinate, ROOK_MASKS[coordinate], ROOK_DIRECTIONS, true) ||
+                    !selfCheck(coordinate, BISHOP_MASKS[coordinate], BISHOP_DIRECTIONS, false)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean selfCheck(final int coordinate, final long mask, final int[] directions, final boolean rook) {
+        long subset = 0L;
+        do {
+            final long expected = rayWalkAttacks(coordinate, subset, directions);
+            final long actual = rook ? rookAttacks(coordinate, subset) : bishopAttacks(coordinate, subset);
+            if (expected != actual) {
+                return false;
+            }
+            subset = (subset - mask) & mask;
+        } while (subset != 0);
+        return true;
+    }
+
+    /**
+     * Reference generator: walks each ray one tile at a time using the same
+     * column exclusions the pieces used before the tables existed.
+     */
+    static long rayWalkAttacks(final int coordinate, final long occupied, final int[] directions) {
+        long attacks = 0L;
+        for (final int offset : directions) {
+            int candidate = coordinate;
+            while (BoardUtils.isValidTileCoordinate(candidate)) {
+                if (isFirstColumnExclusion(candidate, offset) || isEighthColumnExclusion(candidate, offset)) {
+                    break;
+                }
+                candidate += offset;
+                if (!BoardUtils.isValidTileCoordinate(candidate)) {
+                    break;
+                }
+                attacks |= BitBoard.squareMask(candidate);
+                if ((occupied & BitBoard.squareMask(candidate)) != 0) {
+                    break;
+                }
+            }
+        }
+        return attacks;
+    }
+
+    private static boolean isFirstColumnExclusion(final int currentPosition, final int offset) {
+        return BoardUtils.FIRST_COLUMN[currentPosition] && (offset == -9 || offset == -1 || offset == 7);
+    }
+
+    private static boolean isEighthColumnExclusion(final int currentPosition, final int offset) {
+        return BoardUtils.EIGHTH_COLUMN[currentPosition] && (offset == -7 || offset == 1 || offset == 9);
+    }
+
+    // ==========================================
+    // Table construction
+    // ==========================================
+    /**
+     * Fills the masks, shifts, offsets and attack table. Each square tries
+     * its precomputed magic first and only searches for a new one, with the
+     * shared random sequence, if that magic does not fit.
+     */
+    private static long[] initMagics(final int[] directions, final long[] masks, final long[] magics,
+                                     final int[] shifts, final int[] offsets, final long[] precomputedMagics,
+                                     final Random random) {
+        int tableSize = 0;
+        for (int coordinate = 0; coordinate < BoardUtils.NUM_TILES; coordinate++) {
+            masks[coordinate] = relevantOccupancyMask(coordinate, directions);
+            shifts[coordinate] = Long.SIZE - Long.bitCount(masks[coordinate]);
+            offsets[coordinate] = tableSize;
+            tableSize += 1 << Long.bitCount(masks[coordinate]);
+        }
+        final long[] attacks = new long[tableSize];
+        for (int coordinate = 0; coordinate < BoardUtils.NUM_TILES; coordinate++) {
+            magics[coordinate] = findMagic(coordinate, directions, masks[coordinate], shifts[coordinate],
+                    attacks, offsets[coordinate], precomputedMagics[coordinate], random);
+        }
+        return attacks;
+    }
+
+    private static void initLines() {
+        for (int first = 0; first < BoardUtils.NUM_TILES; first++) {
+            for (int second = 0; second < BoardUtils.NUM_TILES; second++) {
+                if (first == second) {
+                    continue;
+                }
+                final long firstMask = BitBoard.squareMask(first);
+                final long secondMask = BitBoard.squareMask(second);
+                final int index = first * BoardUtils.NUM_TILES + second;
+                if ((rookAttacks(first, 0L) & secondMask) != 0) {
+                    BETWEEN[index] = rookAttacks(first, secondMask) & rookAttacks(second, firstMask);
+                    LINE[index] = (rookAttacks(first, 0L) & rookAttacks(second, 0L)) | firstMask | secondMask;
+                } else if ((bishopAttacks(first, 0L) & secondMask) != 0) {
+                    BETWEEN[index] = bishopAttacks(first, secondMask) & bishopAttacks(second, firstMask);
+                    LINE[index] = (bishopAttacks(first, 0L) & bishopAttacks(second, 0L)) | firstMask | secondMask;
+                }
+            }
+        }
+    }
+
+    /**
+     * Tiles whose occupancy can change the attack set: every ray tile except
+     * the last one before the board edge.
+     */
+    private static long relevantOccupancyMask(final int coordinate, final int[] directions) {
+        long mask = 0L;
+        for (final int offset : directions) {
+            final long ray = rayWalkAttacks(coordinate, 0L, new int[]{offset});
+            if (ray != 0) {
+                final int edge = offset > 0 ? 63 - Long.numberOfLeadingZeros(ray) : Long.numberOfTrailingZeros(ray);
+                mask |= ray & ~BitBoard.squareMask(edge);
+            }
+        }
+        return mask;
+    }
+
+    private static long findMagic(final int coordinate, final int[] directions, final long mask, final int shift,
+                                  final long[] table, final int offset, final long precomputedMagic,
+                                  final Random random) {
+        final int size = 1 << Long.bitCount(mask);
+        final long[] occupancies = new long[size];
+        final long[] references = new long[size];
+        long subset = 0L;
+        for (int i = 0; i < size; i++) {
+            occupancies[i] = subset;
+            references[i] = rayWalkAttacks(coordinate, subset, directions);
+            subset = (subset - mask) & mask;
+        }
+        final boolean[] used = new boolean[size];
+        boolean precomputed = precomputedMagic != 0L;
+        while (true) {
+            final long magic = precomputed ? precomputedMagic : random.nextLong() & random.nextLong() & random.nextLong();
+            if (!precomputed && Long.bitCount((mask * magic) & 0xFF00000000000000L) < 6) {
+                continue;
+            }
+            precomputed = false;
+            Arrays.fill(used, false);
+            boolean collision = false;
+            for (int i = 0; i < size && !collision; i++) {
+                final int index = (int) ((occupancies[i] * magic) >>> shift);
+                if (!used[index]) {
+                    used[index] = true;
+                    table[offset + index] = references[i];
+                } else if (table[offset + index] != references[i]) {
+                    collision = true;
+                }
+            }
+            if (!collision) {
+                return magic;
+            }
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package com.chess.engine.board;
 
+import com.chess.engine.Alliance;
 import com.chess.engine.pieces.*;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Objects;
 
 public abstract class Move {
 
@@ -20,26 +22,61 @@ public abstract class Move {
     }
 
     public Piece getMovedPiece() { return this.movedPiece; }
+    public int getCurrentCoordinate() { return this.movedPiece == null ? -1 : this.movedPiece.getPiecePosition(); }
     public int getDestinationCoordinate() { return this.destinationCoordinate; }
     public boolean isAttack() { return false; }
     public Piece getAttackedPiece() { return null; }
+    public Piece.PieceType getPromotionType() { return null; }
+
+    /**
+     * Moves are equal when they move the same piece to the same tile, take
+     * the same piece and promote to the same type, whichever board made them.
+     */
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) return true;
+        if (!(other instanceof Move)) return false;
+        final Move otherMove = (Move) other;
+        return this.destinationCoordinate == otherMove.getDestinationCoordinate()
+                && Objects.equals(this.movedPiece, otherMove.getMovedPiece())
+                && Objects.equals(getAttackedPiece(), otherMove.getAttackedPiece())
+                && getPromotionType() == otherMove.getPromotionType();
+    }
 
-    public Board execute() {
-        final Board.Builder builder = new Board.Builder();
-
-        // Keep all current player's pieces except moved piece
-        for (final Piece piece : this.board.currentPlayer().getActivePieces()) {
-            if (!this.movedPiece.equals(piece)) builder.setPiece(piece);
-        }
+    @Override
+    public int hashCode() {
+        int result = Objects.hashCode(this.movedPiece);
+        result = 31 * result + this.destinationCoordinate;
+        result = 31 * result + Objects.hashCode(getAttackedPiece());
+        result = 31 * result + Objects.hashCode(getPromotionType());
+        return result;
+    }
 
-        // Keep opponent pieces
-        for (final Piece piece : this.board.currentPlayer().getOpponent().getActivePieces()) {
-            builder.setPiece(piece);
-        }
+    /**
+     * Zobrist key of the board after this move, updated from the current
+     * one: the moved piece changes tile, the side to move flips, the old en
+     * passant pawn stops counting and castling rights lose whatever the two
+     * tiles held. Subclasses xor in the other pieces they add or remove.
+     */
+    protected long nextZobristKey() {
+        final int from = this.movedPiece.getPiecePosition();
+        final int pieceIndex = this.movedPiece.getPieceIndex();
+        final int castlingRights = this.board.getCastlingRights();
+        return this.board.getZobristKey() ^
+                Zobrist.piece(pieceIndex, from) ^ Zobrist.piece(pieceIndex, this.destinationCoordinate) ^
+                Zobrist.blackToMove() ^
+                Zobrist.enPassant(this.board.getEnPassantPawn()) ^
+                Zobrist.castling(castlingRights) ^
+                Zobrist.castling(CastlingRights.update(castlingRights, from, this.destinationCoordinate));
+    }
 
-        // Move piece
+    public Board execute() {
+        // Start from the current placement and patch only the tiles the move changes
+        final Board.Builder builder = new Board.Builder(this.board);
+        builder.clearPiece(this.movedPiece.getPiecePosition());
         builder.setPiece(this.movedPiece.movePiece(this));
         builder.setMoveMaker(this.board.currentPlayer().getOpponent().getAlliance());
+        builder.setZobristKey(nextZobristKey());
         return builder.build();
     }
 
@@ -75,18 +112,14 @@ public abstract class Move {
 
         @Override
         public Board execute() {
-            final Board.Builder builder = new Board.Builder();
-
-            for (final Piece piece : this.board.currentPlayer().getActivePieces()) {
-                if (!this.movedPiece.equals(piece)) builder.setPiece(piece);
-            }
-
-            for (final Piece piece : this.board.currentPlayer().getOpponent().getActivePieces()) {
-                if (!piece.equals(this.getAttackedPiece())) builder.setPiece(piece);
-            }
-
+            // The attacked piece is not on the destination tile for an en passant capture
+            final Board.Builder builder = new Board.Builder(this.board);
+            builder.clearPiece(this.movedPiece.getPiecePosition());
+            builder.clearPiece(this.attackedPiece.getPiecePosition());
             builder.setPiece(this.movedPiece.movePiece(this));
             builder.setMoveMaker(this.board.currentPlayer().getOpponent().getAlliance());
+            builder.setZobristKey(nextZobristKey() ^
+                    Zobrist.piece(this.getAttackedPiece().getPieceIndex(), this.getAttackedPiece().getPiecePosition()));
             return builder.build();
         }
     }
@@ -113,20 +146,13 @@ public abstract class Move {
 
         @Override
         public Board execute() {
-            final Board.Builder builder = new Board.Builder();
-
-            for (final Piece piece : this.board.currentPlayer().getActivePieces()) {
-                if (!this.movedPiece.equals(piece)) builder.setPiece(piece);
-            }
-
-            for (final Piece piece : this.board.currentPlayer().getOpponent().getActivePieces()) {
-                builder.setPiece(piece);
-            }
-
+            final Board.Builder builder = new Board.Builder(this.board);
+            builder.clearPiece(this.movedPiece.getPiecePosition());
             final Pawn movedPawn = (Pawn) this.movedPiece.movePiece(this);
             builder.setPiece(movedPawn);
             builder.setEnPassantPawn(movedPawn);
             builder.setMoveMaker(this.board.currentPlayer().getOpponent().getAlliance());
+            builder.setZobristKey(nextZobristKey() ^ Zobrist.enPassant(movedPawn));
             return builder.build();
         }
     }
@@ -135,51 +161,57 @@ public abstract class Move {
         public PawnEnPassantAttack(final Board board, final Pawn movedPawn, final int destinationCoordinate, final Pawn attackedPawn) {
             super(board, movedPawn, destinationCoordinate, attackedPawn);
         }
-
-        @Override
-        public Board execute() {
-            final Board.Builder builder = new Board.Builder();
-
-            for (final Piece piece : this.board.currentPlayer().getActivePieces()) {
-                if (!this.movedPiece.equals(piece)) builder.setPiece(piece);
-            }
-
-            for (final Piece piece : this.board.currentPlayer().getOpponent().getActivePieces()) {
-                if (!piece.equals(this.getAttackedPiece())) builder.setPiece(piece);
-            }
-
-            builder.setPiece(this.movedPiece.movePiece(this));
-            builder.setMoveMaker(this.board.currentPlayer().getOpponent().getAlliance());
-            return builder.build();
-        }
     }
 
     public static class PawnPromotion extends Move {
         private final Move decoratedMove;
         private final Pawn promotedPawn;
+        private final Piece.PieceType promotionType;
 
         public PawnPromotion(final Move decoratedMove) {
+            this(decoratedMove, Piece.PieceType.QUEEN);
+        }
+
+        public PawnPromotion(final Move decoratedMove, final Piece.PieceType promotionType) {
             super(decoratedMove.board, decoratedMove.getMovedPiece(), decoratedMove.getDestinationCoordinate());
             this.decoratedMove = decoratedMove;
             this.promotedPawn = (Pawn) decoratedMove.getMovedPiece();
+            this.promotionType = promotionType;
         }
 
         @Override
-        public Board execute() {
-            final Board pawnMovedBoard = this.decoratedMove.execute();
-            final Board.Builder builder = new Board.Builder();
+        public Piece.PieceType getPromotionType() { return this.promotionType; }
 
-            for (final Piece piece : pawnMovedBoard.currentPlayer().getOpponent().getActivePieces()) {
-                builder.setPiece(piece);
+        @Override
+        public Board execute() {
+            // The promoted piece lands straight on the destination, without an intermediate pawn board
+            final Board.Builder builder = new Board.Builder(this.board);
+            builder.clearPiece(this.promotedPawn.getPiecePosition());
+            final Piece promotedPiece = createPromotedPiece();
+            builder.setPiece(promotedPiece);
+            builder.setMoveMaker(this.board.currentPlayer().getOpponent().getAlliance());
+            long zobristKey = nextZobristKey() ^
+                    Zobrist.piece(this.promotedPawn.getPieceIndex(), this.destinationCoordinate) ^
+                    Zobrist.piece(promotedPiece.getPieceIndex(), this.destinationCoordinate);
+            if (isAttack()) {
+                zobristKey ^= Zobrist.piece(getAttackedPiece().getPieceIndex(), this.destinationCoordinate);
             }
+            builder.setZobristKey(zobristKey);
+            return builder.build();
+        }
 
-            for (final Piece piece : pawnMovedBoard.currentPlayer().getActivePieces()) {
-                if (!this.promotedPawn.equals(piece)) builder.setPiece(piece);
+        private Piece createPromotedPiece() {
+            final Alliance alliance = this.promotedPawn.getPieceAlliance();
+            switch (this.promotionType) {
+                case ROOK:
+                    return PieceUtils.getRook(alliance, this.destinationCoordinate, false);
+                case BISHOP:
+                    return PieceUtils.getBishop(alliance, this.destinationCoordinate, false);
+                case KNIGHT:
+                    return PieceUtils.getKnight(alliance, this.destinationCoordinate, false);
+                default:
+                    return PieceUtils.getQueen(alliance, this.destinationCoordinate, false);
             }
-
-            builder.setPiece(new Queen(this.promotedPawn.getPieceAlliance(), this.destinationCoordinate));
-            builder.setMoveMaker(pawnMovedBoard.currentPlayer().getOpponent().getAlliance());
-            return builder.build();
         }
 
         @Override
@@ -206,19 +238,15 @@ public abstract class Move {
 
         @Override
         public Board execute() {
-            final Board.Builder builder = new Board.Builder();
-
-            for (final Piece piece : this.board.currentPlayer().getActivePieces()) {
-                if (!this.movedPiece.equals(piece) && !this.castleRook.equals(piece)) builder.setPiece(piece);
-            }
-
-            for (final Piece piece : this.board.currentPlayer().getOpponent().getActivePieces()) {
-                builder.setPiece(piece);
-            }
-
+            final Board.Builder builder = new Board.Builder(this.board);
+            builder.clearPiece(this.movedPiece.getPiecePosition());
+            builder.clearPiece(this.castleRookStart);
             builder.setPiece(this.movedPiece.movePiece(this));
-            builder.setPiece(new Rook(this.castleRook.getPieceAlliance(), this.castleRookDestination));
+            builder.setPiece(PieceUtils.getRook(this.castleRook.getPieceAlliance(), this.castleRookDestination, false));
             builder.setMoveMaker(this.board.currentPlayer().getOpponent().getAlliance());
+            builder.setZobristKey(nextZobristKey() ^
+                    Zobrist.piece(this.castleRook.getPieceIndex(), this.castleRookStart) ^
+                    Zobrist.piece(this.castleRook.getPieceIndex(), this.castleRookDestination));
             return builder.build();
         }
     }
@@ -234,14 +262,57 @@ public abstract class Move {
     // Move Factory
     // ==========================================
     public static class MoveFactory {
+        /**
+         * Looks the move up in the current player's legal move index. A
+         * promotion resolves to the queen promotion.
+         */
         public static Move createMove(final Board board, final int currentCoordinate, final int destinationCoordinate) {
-            for (final Move move : board.currentPlayer().getLegalMoves()) {
-                if (move.getMovedPiece().getPiecePosition() == currentCoordinate &&
-                        move.getDestinationCoordinate() == destinationCoordinate) {
-                    return move;
-                }
+            return board.currentPlayer().findLegalMove(currentCoordinate, destinationCoordinate, null);
+        }
+
+        /**
+         * As above, but picks the promotion to the given piece type; pass null
+         * for moves that do not promote.
+         */
+        public static Move createMove(final Board board, final int currentCoordinate, final int destinationCoordinate,
+                                      final Piece.PieceType promotionType) {
+            return board.currentPlayer().findLegalMove(currentCoordinate, destinationCoordinate, promotionType);
+        }
+
+        /**
+         * Builds the Move object for a packed move generated on this board.
+         */
+        public static Move createMove(final Board board, final int packedMove) {
+            final int from = PackedMove.getFrom(packedMove);
+            final int to = PackedMove.getTo(packedMove);
+            final Piece movedPiece = board.getTile(from).getPiece();
+            switch (PackedMove.getFlag(packedMove)) {
+                case PackedMove.FLAG_PAWN_JUMP:
+                    return new PawnJump(board, (Pawn) movedPiece, to);
+                case PackedMove.FLAG_EN_PASSANT:
+                    return new PawnEnPassantAttack(board, (Pawn) movedPiece, to, board.getEnPassantPawn());
+                case PackedMove.FLAG_CASTLE:
+                    if (to > from) {
+                        return new KingSideCastleMove(board, (King) movedPiece, to,
+                                (Rook) board.getTile(from + 3).getPiece(), from + 3, from + 1);
+                    }
+                    return new QueenSideCastleMove(board, (King) movedPiece, to,
+                            (Rook) board.getTile(from - 4).getPiece(), from - 4, from - 1);
+                default:
+                    break;
+            }
+            final Piece attackedPiece = PackedMove.isCapture(packedMove) ? board.getTile(to).getPiece() : null;
+            if (movedPiece.getPieceType() == Piece.PieceType.PAWN) {
+                final Move pawnMove = attackedPiece != null
+                        ? new PawnAttackMove(board, (Pawn) movedPiece, to, attackedPiece)
+                        : new PawnMove(board, (Pawn) movedPiece, to);
+                return PackedMove.isPromotion(packedMove)
+                        ? new PawnPromotion(pawnMove, PackedMove.getPromotionType(packedMove))
+                        : pawnMove;
             }
-            return NULL_MOVE;
+            return attackedPiece != null
+                    ? new AttackMove(board, movedPiece, to, attackedPiece)
+                    : new MajorMove(board, movedPiece, to);
         }
     }
 }
@@ -0,0 +1,72 @@
+package com.chess.engine.board;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of packed moves backed by a plain int array. The search
+ * keeps one per ply and clears it instead of allocating a new one.
+ */
+public final class MoveList {
+
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private int[] moves;
+    private int size;
+
+    public MoveList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MoveList(final int capacity) {
+        this.moves = new int[capacity];
+        this.size = 0;
+    }
+
+    public void add(final int move) {
+        if (this.size == this.moves.length) {
+            this.moves = Arrays.copyOf(this.moves, this.size * 2);
+        }
+        this.moves[this.size++] = move;
+    }
+
+    /**
+     * Appends count moves of the other list, starting at its index start.
+     */
+    public void addRange(final MoveList other, final int start, final int count) {
+        if (this.size + count > this.moves.length) {
+            this.moves = Arrays.copyOf(this.moves, Math.max(this.moves.length * 2, this.size + count));
+        }
+        System.arraycopy(other.moves, start, this.moves, this.size, count);
+        this.size += count;
+    }
+
+    public int get(final int index) {
+        return this.moves[index];
+    }
+
+    public void set(final int index, final int move) {
+        this.moves[index] = move;
+    }
+
+    public void swap(final int first, final int second) {
+        final int move = this.moves[first];
+        this.moves[first] = this.moves[second];
+        this.moves[second] = move;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public void clear() {
+        this.size = 0;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(this.moves, this.size);
+    }
+}
@@ -0,0 +1,88 @@
+package com.chess.engine.board;
+
+import com.chess.engine.pieces.Piece;
+
+/**
+ * Moves packed into a single int for the hot path:
+ *
+ * <pre>
+ *  bits  0-5   origin tile
+ *  bits  6-11  destination tile
+ *  bits 12-15  moved piece index (see BitBoard.pieceIndex)
+ *  bits 16-19  captured piece index + 1, or 0 for a non-capture
+ *  bits 20-22  promotion PieceType ordinal, or 0 for no promotion
+ *  bits 23-24  flag: none, pawn jump, en passant, castle
+ * </pre>
+ *
+ * A legal move never packs to 0, so 0 doubles as "no move".
+ */
+public final class PackedMove {
+
+    public static final int NONE = 0;
+    public static final int NO_PIECE = -1;
+
+    public static final int FLAG_NONE = 0;
+    public static final int FLAG_PAWN_JUMP = 1;
+    public static final int FLAG_EN_PASSANT = 2;
+    public static final int FLAG_CASTLE = 3;
+
+    private PackedMove() {
+        throw new RuntimeException("You cannot instantiate me!");
+    }
+
+    public static int create(final int from, final int to, final int movedPiece, final int capturedPiece,
+                             final int promotion, final int flag) {
+        return from | (to << 6) | (movedPiece << 12) | ((capturedPiece + 1) << 16) | (promotion << 20) | (flag << 23);
+    }
+
+    public static int getFrom(final int move) {
+        return move & 0x3F;
+    }
+
+    public static int getTo(final int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    public static int getMovedPiece(final int move) {
+        return (move >>> 12) & 0xF;
+    }
+
+    /**
+     * Captured piece index, or NO_PIECE. For en passant this is the pawn
+     * beside the destination tile, not a piece on it.
+     */
+    public static int getCapturedPiece(final int move) {
+        return ((move >>> 16) & 0xF) - 1;
+    }
+
+    public static boolean isCapture(final int move) {
+        return (move & (0xF << 16)) != 0;
+    }
+
+    /**
+     * PieceType ordinal promoted to, or 0 if the move is not a promotion.
+     */
+    public static int getPromotion(final int move) {
+        return (move >>> 20) & 0x7;
+    }
+
+    public static boolean isPromotion(final int move) {
+        return getPromotion(move) != 0;
+    }
+
+    public static Piece.PieceType getPromotionType(final int move) {
+        return isPromotion(move) ? Piece.PieceType.values()[getPromotion(move)] : null;
+    }
+
+    public static int getFlag(final int move) {
+        return (move >>> 23) & 0x3;
+    }
+
+    /**
+     * Long algebraic form as used by perft tools, e.g. "e2e4" or "e7e8q".
+     */
+    public static String toString(final int move) {
+        final String name = BoardUtils.getPositionAtCoordinate(getFrom(move)) + BoardUtils.getPositionAtCoordinate(getTo(move));
+        return isPromotion(move) ? name + getPromotionType(move).toString().toLowerCase() : name;
+    }
+}
@@ -0,0 +1,94 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.pieces.Piece;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * One side's packed piece moves, together with the slice of the list each
+ * piece's moves occupy. A board made from this one by a move can copy the
+ * slices of pieces the move could not have affected and regenerate only
+ * the rest.
+ *
+ * A piece keeps its moves when neither its tile nor any tile it reaches
+ * changed: the tiles it attacks, and for pawns the tiles in front. A
+ * slider's first changed tile along a ray is always one it reaches, so a
+ * ray that reaches no changed tile is the same as before.
+ */
+final class PieceMoveSet {
+
+    private static final int NO_RANGE = -1;
+    private static final int COUNT_SHIFT = 16;
+    private static final int START_MASK = (1 << COUNT_SHIFT) - 1;
+
+    private final MoveList moves;
+    // start | count << COUNT_SHIFT per tile, NO_RANGE for tiles without a piece
+    private final int[] ranges;
+
+    private PieceMoveSet(final MoveList moves, final int[] ranges) {
+        this.moves = moves;
+        this.ranges = ranges;
+    }
+
+    MoveList getMoves() {
+        return this.moves;
+    }
+
+    /**
+     * Generates every piece's moves from scratch.
+     */
+    static PieceMoveSet generate(final Board board, final Collection<Piece> pieces) {
+        return update(board, pieces, null, 0L);
+    }
+
+    /**
+     * Copies the moves of pieces untouched by the changed tiles from the
+     * previous set and generates the others. With no previous set every
+     * piece is generated.
+     */
+    static PieceMoveSet update(final Board board, final Collection<Piece> pieces,
+                               final PieceMoveSet previous, final long changedTiles) {
+        final MoveList moves = new MoveList(previous != null ? previous.moves.size() + 16 : 64);
+        final int[] ranges = new int[BoardUtils.NUM_TILES];
+        Arrays.fill(ranges, NO_RANGE);
+        final long occupied = board.getBitBoard().getOccupied();
+        for (final Piece piece : pieces) {
+            final int position = piece.getPiecePosition();
+            final int start = moves.size();
+            final int previousRange = previous != null ? previous.ranges[position] : NO_RANGE;
+            if (previousRange != NO_RANGE && (reach(piece, occupied) & changedTiles) == 0) {
+                moves.addRange(previous.moves, previousRange & START_MASK, previousRange >>> COUNT_SHIFT);
+            } else {
+                piece.generateMoves(board, moves);
+            }
+            ranges[position] = start | (moves.size() - start) << COUNT_SHIFT;
+        }
+        return new PieceMoveSet(moves, ranges);
+    }
+
+    /**
+     * The piece's own tile and every tile its moves depend on.
+     */
+    private static long reach(final Piece piece, final long occupied) {
+        final int position = piece.getPiecePosition();
+        final long tile = BitBoard.squareMask(position);
+        switch (piece.getPieceType()) {
+            case PAWN:
+                final Alliance alliance = piece.getPieceAlliance();
+                final long pushes = alliance.isWhite() ? (tile >>> 8) | (tile >>> 16) : (tile << 8) | (tile << 16);
+                return tile | pushes | LeaperAttacks.pawnAttacks(alliance, position);
+            case KNIGHT:
+                return tile | LeaperAttacks.knightAttacks(position);
+            case BISHOP:
+                return tile | MagicBitBoards.bishopAttacks(position, occupied);
+            case ROOK:
+                return tile | MagicBitBoards.rookAttacks(position, occupied);
+            case QUEEN:
+                return tile | MagicBitBoards.queenAttacks(position, occupied);
+            default:
+                return tile | LeaperAttacks.kingAttacks(position);
+        }
+    }
+}
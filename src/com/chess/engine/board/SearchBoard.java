@@ -0,0 +1,503 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.pieces.Piece;
+
+import java.util.Arrays;
+
+/**
+ * Mutable position used by the search. Moves are applied in place with
+ * makeMove and reverted with unmakeMove, which restores the position from a
+ * small per-ply undo record instead of building a new Board. The immutable
+ * Board stays the type the GUI and public API work with. Moves are
+ * PackedMove ints generated into a caller-owned MoveList.
+ */
+public final class SearchBoard {
+
+    private static final int MAX_PLY = 256;
+    private static final int EMPTY = PackedMove.NO_PIECE;
+    private static final int NO_EN_PASSANT = -1;
+
+    private static final long WHITE_KING_SIDE_BETWEEN = BitBoard.squareMask(61) | BitBoard.squareMask(62);
+    private static final long WHITE_QUEEN_SIDE_BETWEEN = BitBoard.squareMask(57) | BitBoard.squareMask(58) | BitBoard.squareMask(59);
+    private static final long BLACK_KING_SIDE_BETWEEN = BitBoard.squareMask(5) | BitBoard.squareMask(6);
+    private static final long BLACK_QUEEN_SIDE_BETWEEN = BitBoard.squareMask(1) | BitBoard.squareMask(2) | BitBoard.squareMask(3);
+
+    private static final long FIRST_ROW = 0xFFL;
+    private static final long EIGHTH_ROW = 0xFFL << 56;
+    private static final long WHITE_JUMP_ROW = 0xFFL << 40;
+    private static final long BLACK_JUMP_ROW = 0xFFL << 16;
+
+    private static final int PAWN = Piece.PieceType.PAWN.ordinal();
+    private static final int KNIGHT = Piece.PieceType.KNIGHT.ordinal();
+    private static final int BISHOP = Piece.PieceType.BISHOP.ordinal();
+    private static final int ROOK = Piece.PieceType.ROOK.ordinal();
+    private static final int QUEEN = Piece.PieceType.QUEEN.ordinal();
+    private static final int KING = Piece.PieceType.KING.ordinal();
+
+    private final BitBoard bitBoard;
+    private final int[] mailbox;
+    private final LegalityMasks legality = new LegalityMasks();
+    private final MoveList castleMoves = new MoveList(2);
+    private final MoveList pawnMoves = new MoveList();
+    private Alliance sideToMove;
+    private int castlingRights;
+    private int enPassantCoordinate;
+    private long zobristKey;
+
+    // Undo stack: the move played at each ply plus the state it overwrote,
+    // packed as castling rights | en passant + 1 << 4, and the key before it.
+    // Captures travel in the move itself.
+    private int[] moveStack;
+    private int[] undoStack;
+    private long[] keyStack;
+    private int ply;
+
+    public SearchBoard(final Board board) {
+        this.bitBoard = new BitBoard(board.getBitBoard());
+        this.mailbox = new int[BoardUtils.NUM_TILES];
+        Arrays.fill(this.mailbox, EMPTY);
+        for (int pieceIndex = 0; pieceIndex < BitBoard.NUM_PIECE_INDEXES; pieceIndex++) {
+            for (long pieces = this.bitBoard.getPieces(pieceIndex); pieces != 0; pieces &= pieces - 1) {
+                this.mailbox[BitBoard.lowestCoordinate(pieces)] = pieceIndex;
+            }
+        }
+        this.sideToMove = board.currentPlayer().getAlliance();
+        this.castlingRights = CastlingRights.calculate(board);
+        this.enPassantCoordinate = board.getEnPassantPawn() == null ? NO_EN_PASSANT :
+                board.getEnPassantPawn().getPiecePosition() - board.getEnPassantPawn().getPieceAlliance().getDirection() * 8;
+        this.moveStack = new int[MAX_PLY];
+        this.undoStack = new int[MAX_PLY];
+        this.keyStack = new long[MAX_PLY];
+        this.zobristKey = board.getZobristKey();
+        this.ply = 0;
+    }
+
+    public Alliance getSideToMove() {
+        return this.sideToMove;
+    }
+
+    public BitBoard getBitBoard() {
+        return this.bitBoard;
+    }
+
+    /**
+     * Piece index (see BitBoard.pieceIndex) on the tile, or -1 if empty.
+     */
+    public int getPieceIndex(final int coordinate) {
+        return this.mailbox[coordinate];
+    }
+
+    /**
+     * Zobrist key of the position, equal to Board.getZobristKey() for the
+     * same position and kept up to date by makeMove and unmakeMove.
+     */
+    public long getZobristKey() {
+        return this.zobristKey;
+    }
+
+    public boolean isInCheck() {
+        return this.bitBoard.isAttacked(this.bitBoard.getKingCoordinate(this.sideToMove), this.sideToMove.getOpponent());
+    }
+
+    // ==========================================
+    // Make / unmake
+    // ==========================================
+
+    /**
+     * Plays a move produced by generateMoves, which only emits legal moves,
+     * so nothing has to be tested or taken back here.
+     */
+    public void makeMove(final int move) {
+        final int from = PackedMove.getFrom(move);
+        final int to = PackedMove.getTo(move);
+        final int flag = PackedMove.getFlag(move);
+        final int movedPiece = PackedMove.getMovedPiece(move);
+        final int capturedPiece = PackedMove.getCapturedPiece(move);
+        final Alliance mover = this.sideToMove;
+
+        if (this.ply == this.moveStack.length) {
+            this.moveStack = Arrays.copyOf(this.moveStack, this.ply * 2);
+            this.undoStack = Arrays.copyOf(this.undoStack, this.ply * 2);
+            this.keyStack = Arrays.copyOf(this.keyStack, this.ply * 2);
+        }
+        this.moveStack[this.ply] = move;
+        this.undoStack[this.ply] = this.castlingRights | ((this.enPassantCoordinate + 1) << 4);
+        this.keyStack[this.ply] = this.zobristKey;
+        this.ply++;
+
+        // The key is only updated here; unmakeMove restores it from the stack
+        long key = this.zobristKey;
+        if (capturedPiece != EMPTY) {
+            final int capturedCoordinate = flag == PackedMove.FLAG_EN_PASSANT ? to - mover.getDirection() * 8 : to;
+            removePiece(capturedPiece, capturedCoordinate);
+            key ^= Zobrist.piece(capturedPiece, capturedCoordinate);
+        }
+        final int placedPiece = PackedMove.isPromotion(move)
+                ? mover.ordinal() * BitBoard.NUM_PIECE_TYPES + PackedMove.getPromotion(move) : movedPiece;
+        removePiece(movedPiece, from);
+        putPiece(placedPiece, to);
+        key ^= Zobrist.piece(movedPiece, from) ^ Zobrist.piece(placedPiece, to);
+        if (flag == PackedMove.FLAG_CASTLE) {
+            final int rookFrom = to > from ? from + 3 : from - 4;
+            final int rookTo = to > from ? from + 1 : from - 1;
+            final int rook = this.mailbox[rookFrom];
+            removePiece(rook, rookFrom);
+            putPiece(rook, rookTo);
+            key ^= Zobrist.piece(rook, rookFrom) ^ Zobrist.piece(rook, rookTo);
+        }
+
+        final int castlingRights = CastlingRights.update(this.castlingRights, from, to);
+        if (castlingRights != this.castlingRights) {
+            key ^= Zobrist.castling(this.castlingRights) ^ Zobrist.castling(castlingRights);
+            this.castlingRights = castlingRights;
+        }
+        key ^= Zobrist.enPassant(this.enPassantCoordinate) ^ Zobrist.blackToMove();
+        this.enPassantCoordinate = flag == PackedMove.FLAG_PAWN_JUMP ? (from + to) / 2 : NO_EN_PASSANT;
+        this.zobristKey = key ^ Zobrist.enPassant(this.enPassantCoordinate);
+        this.sideToMove = mover.getOpponent();
+    }
+
+    /**
+     * Reverts the most recent makeMove.
+     */
+    public void unmakeMove() {
+        this.ply--;
+        final int move = this.moveStack[this.ply];
+        final int undo = this.undoStack[this.ply];
+        final int from = PackedMove.getFrom(move);
+        final int to = PackedMove.getTo(move);
+        final int flag = PackedMove.getFlag(move);
+        final int movedPiece = PackedMove.getMovedPiece(move);
+        final int capturedPiece = PackedMove.getCapturedPiece(move);
+        final Alliance mover = this.sideToMove.getOpponent();
+
+        removePiece(this.mailbox[to], to);
+        putPiece(movedPiece, from);
+        if (flag == PackedMove.FLAG_CASTLE) {
+            final int rookFrom = to > from ? from + 3 : from - 4;
+            final int rookTo = to > from ? from + 1 : from - 1;
+            final int rook = this.mailbox[rookTo];
+            removePiece(rook, rookTo);
+            putPiece(rook, rookFrom);
+        }
+        if (capturedPiece != EMPTY) {
+            putPiece(capturedPiece, flag == PackedMove.FLAG_EN_PASSANT ? to - mover.getDirection() * 8 : to);
+        }
+
+        this.castlingRights = undo & 0xF;
+        this.enPassantCoordinate = ((undo >>> 4) & 0x7F) - 1;
+        this.zobristKey = this.keyStack[this.ply];
+        this.sideToMove = mover;
+    }
+
+    private void putPiece(final int pieceIndex, final int coordinate) {
+        this.mailbox[coordinate] = pieceIndex;
+        this.bitBoard.setPiece(pieceIndex, coordinate);
+    }
+
+    private void removePiece(final int pieceIndex, final int coordinate) {
+        this.mailbox[coordinate] = EMPTY;
+        this.bitBoard.clearPiece(pieceIndex, coordinate);
+    }
+
+    // ==========================================
+    // Move generation
+    // ==========================================
+
+    /**
+     * Appends the side to move's legal moves to the list. Checks and pins
+     * are worked out once up front (see LegalityMasks) and every piece's
+     * targets are narrowed by them, so no move has to be played to be tested.
+     */
+    public void generateMoves(final MoveList moves) {
+        generate(moves, true, true);
+    }
+
+    /**
+     * Legal captures, en passant and promotions only: the moves that change
+     * material, for move ordering and quiescence search.
+     */
+    public void generateCaptures(final MoveList moves) {
+        generate(moves, true, false);
+    }
+
+    /**
+     * Every legal move generateCaptures leaves out, castles included.
+     */
+    public void generateQuiets(final MoveList moves) {
+        generate(moves, false, true);
+    }
+
+    /**
+     * Does the side to move have a legal move? Stops at the first piece with
+     * a legal target instead of listing moves, king first. Castles need no
+     * test: a legal castle means the king may also step to the tile beside it.
+     */
+    public boolean hasLegalMove() {
+        final Alliance us = this.sideToMove;
+        final int base = us.ordinal() * BitBoard.NUM_PIECE_TYPES;
+        final long occupied = this.bitBoard.getOccupied();
+        final long targetMask = ~this.bitBoard.getAlliancePieces(us);
+        final int kingCoordinate = this.bitBoard.getKingCoordinate(us);
+        this.legality.compute(this.bitBoard, us);
+
+        for (long targets = LeaperAttacks.kingAttacks(kingCoordinate) & targetMask; targets != 0; targets &= targets - 1) {
+            if (this.legality.isKingMoveSafe(BitBoard.lowestCoordinate(targets))) {
+                return true;
+            }
+        }
+        if (this.legality.isDoubleCheck()) {
+            return false;
+        }
+        for (int type = KNIGHT; type <= QUEEN; type++) {
+            for (long pieces = this.bitBoard.getPieces(base + type); pieces != 0; pieces &= pieces - 1) {
+                final int from = BitBoard.lowestCoordinate(pieces);
+                if (this.legality.restrictTargets(from, attacks(type, from, occupied) & targetMask) != 0) {
+                    return true;
+                }
+            }
+        }
+        this.pawnMoves.clear();
+        generatePawnMoves(this.pawnMoves, us, base + PAWN, occupied, true, true);
+        return !this.pawnMoves.isEmpty();
+    }
+
+    private void generate(final MoveList moves, final boolean captures, final boolean quiets) {
+        final Alliance us = this.sideToMove;
+        final int base = us.ordinal() * BitBoard.NUM_PIECE_TYPES;
+        final long occupied = this.bitBoard.getOccupied();
+        final long targetMask = (captures ? this.bitBoard.getAlliancePieces(us.getOpponent()) : 0L) |
+                (quiets ? ~occupied : 0L);
+        final int kingCoordinate = this.bitBoard.getKingCoordinate(us);
+        this.legality.compute(this.bitBoard, us);
+
+        // In double check only the king may move
+        if (!this.legality.isDoubleCheck()) {
+            generatePawnMoves(moves, us, base + PAWN, occupied, captures, quiets);
+            for (long pieces = this.bitBoard.getPieces(base + KNIGHT); pieces != 0; pieces &= pieces - 1) {
+                final int from = BitBoard.lowestCoordinate(pieces);
+                addTargets(moves, from, base + KNIGHT, this.legality.restrictTargets(from, LeaperAttacks.knightAttacks(from) & targetMask));
+            }
+            for (long pieces = this.bitBoard.getPieces(base + BISHOP); pieces != 0; pieces &= pieces - 1) {
+                final int from = BitBoard.lowestCoordinate(pieces);
+                addTargets(moves, from, base + BISHOP, this.legality.restrictTargets(from, MagicBitBoards.bishopAttacks(from, occupied) & targetMask));
+            }
+            for (long pieces = this.bitBoard.getPieces(base + ROOK); pieces != 0; pieces &= pieces - 1) {
+                final int from = BitBoard.lowestCoordinate(pieces);
+                addTargets(moves, from, base + ROOK, this.legality.restrictTargets(from, MagicBitBoards.rookAttacks(from, occupied) & targetMask));
+            }
+            for (long pieces = this.bitBoard.getPieces(base + QUEEN); pieces != 0; pieces &= pieces - 1) {
+                final int from = BitBoard.lowestCoordinate(pieces);
+                addTargets(moves, from, base + QUEEN, this.legality.restrictTargets(from, MagicBitBoards.queenAttacks(from, occupied) & targetMask));
+            }
+        }
+
+        for (long targets = LeaperAttacks.kingAttacks(kingCoordinate) & targetMask; targets != 0; targets &= targets - 1) {
+            final int to = BitBoard.lowestCoordinate(targets);
+            if (this.legality.isKingMoveSafe(to)) {
+                moves.add(PackedMove.create(kingCoordinate, to, base + KING, this.mailbox[to], 0, PackedMove.FLAG_NONE));
+            }
+        }
+
+        if (quiets && !this.legality.isInCheck()) {
+            generateCastles(moves, kingCoordinate, base + KING, occupied);
+        }
+    }
+
+    /**
+     * Promotions, captures and en passant count as captures; single pushes
+     * and jumps that do not promote are quiet.
+     */
+    private void generatePawnMoves(final MoveList moves, final Alliance us, final int pawn, final long occupied,
+                                   final boolean captures, final boolean quiets) {
+        final long enemy = this.bitBoard.getAlliancePieces(us.getOpponent());
+        final long empty = ~occupied;
+        final boolean restricted = this.legality.isInCheck() || this.legality.getPinned() != 0;
+
+        // Pushes and jumps as whole-set shifts, captures per pawn
+        final long pawns = this.bitBoard.getPieces(pawn);
+        final long singlePushes;
+        final long jumps;
+        final int push;
+        final long promotionRow;
+        if (us.isWhite()) {
+            singlePushes = (pawns >>> 8) & empty;
+            jumps = ((singlePushes & WHITE_JUMP_ROW) >>> 8) & empty;
+            push = -8;
+            promotionRow = FIRST_ROW;
+        } else {
+            singlePushes = (pawns << 8) & empty;
+            jumps = ((singlePushes & BLACK_JUMP_ROW) << 8) & empty;
+            push = 8;
+            promotionRow = EIGHTH_ROW;
+        }
+        if (quiets) {
+            for (long targets = singlePushes & ~promotionRow; targets != 0; targets &= targets - 1) {
+                final int to = BitBoard.lowestCoordinate(targets);
+                if (restricted && this.legality.restrictTargets(to - push, BitBoard.squareMask(to)) == 0) {
+                    continue;
+                }
+                moves.add(PackedMove.create(to - push, to, pawn, EMPTY, 0, PackedMove.FLAG_NONE));
+            }
+            for (long targets = jumps; targets != 0; targets &= targets - 1) {
+                final int to = BitBoard.lowestCoordinate(targets);
+                if (restricted && this.legality.restrictTargets(to - 2 * push, BitBoard.squareMask(to)) == 0) {
+                    continue;
+                }
+                moves.add(PackedMove.create(to - 2 * push, to, pawn, EMPTY, 0, PackedMove.FLAG_PAWN_JUMP));
+            }
+        }
+        if (!captures) {
+            return;
+        }
+        for (long targets = singlePushes & promotionRow; targets != 0; targets &= targets - 1) {
+            final int to = BitBoard.lowestCoordinate(targets);
+            if (restricted && this.legality.restrictTargets(to - push, BitBoard.squareMask(to)) == 0) {
+                continue;
+            }
+            addPromotions(moves, to - push, to, pawn, EMPTY);
+        }
+        for (long pieces = pawns; pieces != 0; pieces &= pieces - 1) {
+            final int from = BitBoard.lowestCoordinate(pieces);
+            final long attacks = LeaperAttacks.pawnAttacks(us, from);
+            for (long targets = this.legality.restrictTargets(from, attacks & enemy); targets != 0; targets &= targets - 1) {
+                final int to = BitBoard.lowestCoordinate(targets);
+                if ((promotionRow & BitBoard.squareMask(to)) != 0) {
+                    addPromotions(moves, from, to, pawn, this.mailbox[to]);
+                } else {
+                    moves.add(PackedMove.create(from, to, pawn, this.mailbox[to], 0, PackedMove.FLAG_NONE));
+                }
+            }
+            if (this.enPassantCoordinate != NO_EN_PASSANT && (attacks & BitBoard.squareMask(this.enPassantCoordinate)) != 0 &&
+                    this.legality.isEnPassantLegal(from, this.enPassantCoordinate, this.enPassantCoordinate - push)) {
+                moves.add(PackedMove.create(from, this.enPassantCoordinate, pawn,
+                        this.mailbox[this.enPassantCoordinate - push], 0, PackedMove.FLAG_EN_PASSANT));
+            }
+        }
+    }
+
+    /**
+     * Is the packed move legal in this position? For moves remembered from
+     * other positions, such as hash moves and killers, so the search can
+     * try them before generating anything.
+     */
+    public boolean isLegalMove(final int move) {
+        if (move == PackedMove.NONE) {
+            return false;
+        }
+        final Alliance us = this.sideToMove;
+        final int from = PackedMove.getFrom(move);
+        final int to = PackedMove.getTo(move);
+        final int flag = PackedMove.getFlag(move);
+        final int movedPiece = PackedMove.getMovedPiece(move);
+        final int capturedPiece = PackedMove.getCapturedPiece(move);
+        if (this.mailbox[from] != movedPiece || movedPiece / BitBoard.NUM_PIECE_TYPES != us.ordinal()) {
+            return false;
+        }
+        final int push = us.isWhite() ? -8 : 8;
+        final int type = movedPiece % BitBoard.NUM_PIECE_TYPES;
+
+        if (flag == PackedMove.FLAG_CASTLE) {
+            if (type != KING || this.bitBoard.isAttacked(from, us.getOpponent())) {
+                return false;
+            }
+            this.castleMoves.clear();
+            generateCastles(this.castleMoves, from, movedPiece, this.bitBoard.getOccupied());
+            for (int i = 0; i < this.castleMoves.size(); i++) {
+                if (this.castleMoves.get(i) == move) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        if (flag == PackedMove.FLAG_EN_PASSANT) {
+            if (type != PAWN || to != this.enPassantCoordinate || this.mailbox[to - push] != capturedPiece ||
+                    (LeaperAttacks.pawnAttacks(us, from) & BitBoard.squareMask(to)) == 0) {
+                return false;
+            }
+        } else if (this.mailbox[to] != capturedPiece ||
+                (capturedPiece != EMPTY && capturedPiece / BitBoard.NUM_PIECE_TYPES == us.ordinal())) {
+            return false;
+        } else if (type == PAWN) {
+            final boolean promotes = ((us.isWhite() ? FIRST_ROW : EIGHTH_ROW) & BitBoard.squareMask(to)) != 0;
+            if (PackedMove.isPromotion(move) != promotes) {
+                return false;
+            }
+            if (capturedPiece != EMPTY) {
+                if (flag != PackedMove.FLAG_NONE || (LeaperAttacks.pawnAttacks(us, from) & BitBoard.squareMask(to)) == 0) {
+                    return false;
+                }
+            } else if (flag == PackedMove.FLAG_PAWN_JUMP) {
+                if (to != from + 2 * push || this.mailbox[from + push] != EMPTY ||
+                        ((us.isWhite() ? WHITE_JUMP_ROW : BLACK_JUMP_ROW) & BitBoard.squareMask(from + push)) == 0) {
+                    return false;
+                }
+            } else if (to != from + push) {
+                return false;
+            }
+        } else if (flag != PackedMove.FLAG_NONE || PackedMove.isPromotion(move) ||
+                (attacks(type, from, this.bitBoard.getOccupied()) & BitBoard.squareMask(to)) == 0) {
+            return false;
+        }
+
+        this.legality.compute(this.bitBoard, us);
+        return this.legality.isLegal(move);
+    }
+
+    private static long attacks(final int type, final int from, final long occupied) {
+        if (type == KNIGHT) {
+            return LeaperAttacks.knightAttacks(from);
+        } else if (type == BISHOP) {
+            return MagicBitBoards.bishopAttacks(from, occupied);
+        } else if (type == ROOK) {
+            return MagicBitBoards.rookAttacks(from, occupied);
+        } else if (type == QUEEN) {
+            return MagicBitBoards.queenAttacks(from, occupied);
+        }
+        return LeaperAttacks.kingAttacks(from);
+    }
+
+    private void addTargets(final MoveList moves, final int from, final int movedPiece, final long targets) {
+        for (long remaining = targets; remaining != 0; remaining &= remaining - 1) {
+            final int to = BitBoard.lowestCoordinate(remaining);
+            moves.add(PackedMove.create(from, to, movedPiece, this.mailbox[to], 0, PackedMove.FLAG_NONE));
+        }
+    }
+
+    /**
+     * Promotions are generated queen first, then the under-promotions.
+     */
+    private static void addPromotions(final MoveList moves, final int from, final int to,
+                                      final int pawn, final int capturedPiece) {
+        moves.add(PackedMove.create(from, to, pawn, capturedPiece, QUEEN, PackedMove.FLAG_NONE));
+        moves.add(PackedMove.create(from, to, pawn, capturedPiece, ROOK, PackedMove.FLAG_NONE));
+        moves.add(PackedMove.create(from, to, pawn, capturedPiece, BISHOP, PackedMove.FLAG_NONE));
+        moves.add(PackedMove.create(from, to, pawn, capturedPiece, KNIGHT, PackedMove.FLAG_NONE));
+    }
+
+    /**
+     * Castling needs the right, an empty path and a king that is not in
+     * check (tested by the caller) and neither passes through nor lands on an
+     * attacked tile.
+     */
+    private void generateCastles(final MoveList moves, final int kingCoordinate, final int king, final long occupied) {
+        final int kingSide = this.sideToMove.isWhite() ? CastlingRights.WHITE_KING_SIDE : CastlingRights.BLACK_KING_SIDE;
+        final int queenSide = this.sideToMove.isWhite() ? CastlingRights.WHITE_QUEEN_SIDE : CastlingRights.BLACK_QUEEN_SIDE;
+        if ((this.castlingRights & (kingSide | queenSide)) == 0) {
+            return;
+        }
+        final Alliance them = this.sideToMove.getOpponent();
+        final long kingSideBetween = this.sideToMove.isWhite() ? WHITE_KING_SIDE_BETWEEN : BLACK_KING_SIDE_BETWEEN;
+        final long queenSideBetween = this.sideToMove.isWhite() ? WHITE_QUEEN_SIDE_BETWEEN : BLACK_QUEEN_SIDE_BETWEEN;
+        if ((this.castlingRights & kingSide) != 0 && (occupied & kingSideBetween) == 0 &&
+                !this.bitBoard.isAttacked(kingCoordinate + 1, them) && !this.bitBoard.isAttacked(kingCoordinate + 2, them)) {
+            moves.add(PackedMove.create(kingCoordinate, kingCoordinate + 2, king, EMPTY, 0, PackedMove.FLAG_CASTLE));
+        }
+        if ((this.castlingRights & queenSide) != 0 && (occupied & queenSideBetween) == 0 &&
+                !this.bitBoard.isAttacked(kingCoordinate - 1, them) && !this.bitBoard.isAttacked(kingCoordinate - 2, them)) {
+            moves.add(PackedMove.create(kingCoordinate, kingCoordinate - 2, king, EMPTY, 0, PackedMove.FLAG_CASTLE));
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.pieces.Piece;
+import com.chess.engine.pieces.PieceUtils;
+
+/**
+ * Static exchange evaluation: the material a capture wins or loses once
+ * both sides have recaptured on its tile for as long as it pays them,
+ * always with their least valuable attacker. Sliders lined up behind an
+ * attacker join in once it has captured, since attackers are looked up
+ * again through the shrinking occupancy. Pins are not taken into account,
+ * and the king only recaptures onto an undefended tile.
+ *
+ * Values default to those of Piece.getPieceValue. A search should pass
+ * the table its evaluation uses, indexed by piece type, so that what SEE
+ * calls a losing capture is one its evaluation would score as losing too.
+ */
+public final class StaticExchange {
+
+    private static final int[] PIECE_VALUES = createPieceValues();
+    // More captures than there are pieces cannot happen on one tile
+    public static final int MAX_EXCHANGE = 32;
+
+    private StaticExchange() {
+        throw new RuntimeException("You cannot instantiate me!");
+    }
+
+    private static int[] createPieceValues() {
+        final Piece.PieceType[] pieceTypes = Piece.PieceType.values();
+        final int[] values = new int[pieceTypes.length];
+        for (final Piece.PieceType pieceType : pieceTypes) {
+            values[pieceType.ordinal()] = PieceUtils.getPiece(pieceType, Alliance.WHITE, 0, false).getPieceValue();
+        }
+        return values;
+    }
+
+    public static int getPieceValue(final Piece.PieceType pieceType) {
+        return PIECE_VALUES[pieceType.ordinal()];
+    }
+
+    /**
+     * Exchange value of a packed move for the side playing it: positive
+     * when it wins material, negative when it loses some. Quiet moves are
+     * scored as the exchange their piece risks on the destination. Pieces
+     * are valued from pieceValues, indexed by piece type.
+     *
+     * @param gains scratch space of MAX_EXCHANGE entries, kept by the caller
+     *              so that a search does not allocate per call
+     */
+    public static int see(final SearchBoard board, final int move, final int[] pieceValues, final int[] gains) {
+        final int movedPiece = PackedMove.getMovedPiece(move);
+        final int to = PackedMove.getTo(move);
+        final Alliance mover = board.getSideToMove();
+        final boolean isEnPassant = PackedMove.getFlag(move) == PackedMove.FLAG_EN_PASSANT;
+        return see(board.getBitBoard(), PackedMove.getFrom(move), to, mover, movedPiece % BitBoard.NUM_PIECE_TYPES,
+                PackedMove.isCapture(move) ? PackedMove.getCapturedPiece(move) % BitBoard.NUM_PIECE_TYPES : -1,
+                isEnPassant ? to - mover.getDirection() * 8 : to,
+                PackedMove.isPromotion(move) ? PackedMove.getPromotion(move) : -1, pieceValues, gains);
+    }
+
+    /**
+     * Exchange value of a Board move for the side playing it, as for
+     * packed moves, with Piece.getPieceValue values.
+     */
+    public static int see(final Board board, final Move move) {
+        return see(board, move, PIECE_VALUES);
+    }
+
+    /**
+     * Exchange value of a Board move with the given piece values, indexed
+     * by piece type.
+     */
+    public static int see(final Board board, final Move move, final int[] pieceValues) {
+        final Piece movedPiece = move.getMovedPiece();
+        final Piece attackedPiece = move.getAttackedPiece();
+        final Piece.PieceType promotionType = move.getPromotionType();
+        final int to = move.getDestinationCoordinate();
+        return see(board.getBitBoard(), movedPiece.getPiecePosition(), to, movedPiece.getPieceAlliance(),
+                movedPiece.getPieceType().ordinal(),
+                attackedPiece != null ? attackedPiece.getPieceType().ordinal() : -1,
+                attackedPiece != null ? attackedPiece.getPiecePosition() : to,
+                promotionType != null ? promotionType.ordinal() : -1, pieceValues, new int[MAX_EXCHANGE]);
+    }
+
+    /**
+     * Checks known exchanges, with Piece.getPieceValue values, through both
+     * the Board and the packed move entry points.
+     *
+     * @return true if every exchange scored as expected
+     */
+    public static boolean selfCheck() {
+        // Bxd5 Rxd5 Rxd5 Rxd5: the rook on d8 joins once the one on d7 has taken back, so Rxd5 does not pay
+        return checkExchange("3r2k1/3r4/8/3n4/8/5B2/3R4/6K1 w - - 0 1", "f3", "d5", null, 0) &&
+                // Bxd7: only the king could take back, and the rook on d1 defends d7
+                checkExchange("4k3/3n4/8/1B6/8/8/8/3R2K1 w - - 0 1", "b5", "d7", null, 300) &&
+                // Bxd7 Kxd7: undefended, so the king takes back
+                checkExchange("4k3/3n4/8/1B6/8/8/8/6K1 w - - 0 1", "b5", "d7", null, 0) &&
+                // bxa8=Q Nxa8: rook and promotion won, queen lost
+                checkExchange("r7/1Pn5/8/8/8/8/8/4K2k w - - 0 1", "b7", "a8", Piece.PieceType.QUEEN, 400) &&
+                // Qxd6 cxd6: a queen for a pawn
+                checkExchange("4k3/2p5/3p4/8/8/8/3Q4/4K3 w - - 0 1", "d2", "d6", null, -800);
+    }
+
+    private static boolean checkExchange(final String fen, final String from, final String to,
+                                         final Piece.PieceType promotionType, final int expected) {
+        final Board board = FenUtilities.createGameFromFEN(fen);
+        final int fromCoordinate = BoardUtils.getCoordinateAtPosition(from);
+        final int toCoordinate = BoardUtils.getCoordinateAtPosition(to);
+        final Move move = board.currentPlayer().findLegalMove(fromCoordinate, toCoordinate, promotionType);
+        if (move == Move.NULL_MOVE || see(board, move) != expected) {
+            return false;
+        }
+        final SearchBoard searchBoard = new SearchBoard(board);
+        final MoveList moves = new MoveList();
+        searchBoard.generateMoves(moves);
+        for (int i = 0; i < moves.size(); i++) {
+            final int packedMove = moves.get(i);
+            if (PackedMove.getFrom(packedMove) == fromCoordinate && PackedMove.getTo(packedMove) == toCoordinate &&
+                    PackedMove.getPromotionType(packedMove) == promotionType) {
+                return see(searchBoard, packedMove, PIECE_VALUES, new int[MAX_EXCHANGE]) == expected;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param capturedType type of the captured piece, or -1 for none
+     * @param capturedAt   tile of the captured piece, which differs from to for en passant
+     * @param promotion    type promoted to, or -1 for none
+     * @param pieceValues  value of each piece type, indexed by ordinal
+     * @param gain         scratch space of MAX_EXCHANGE entries
+     */
+    private static int see(final BitBoard bitBoard, final int from, final int to, final Alliance mover,
+                           final int movedType, final int capturedType, final int capturedAt, final int promotion,
+                           final int[] pieceValues, final int[] gain) {
+        // gain[i]: material the side making capture i ends up with if the exchange stops there
+        gain[0] = capturedType >= 0 ? pieceValues[capturedType] : 0;
+        int onTile = pieceValues[movedType];
+        if (promotion >= 0) {
+            gain[0] += pieceValues[promotion] - pieceValues[Piece.PieceType.PAWN.ordinal()];
+            onTile = pieceValues[promotion];
+        }
+
+        long occupied = bitBoard.getOccupied() & ~BitBoard.squareMask(from) & ~BitBoard.squareMask(capturedAt);
+        long attackers = bitBoard.getAttackers(to, occupied);
+        Alliance side = mover;
+        int depth = 0;
+        while (depth + 1 < MAX_EXCHANGE) {
+            side = side.getOpponent();
+            final long sideAttackers = attackers & bitBoard.getAlliancePieces(side);
+            if (sideAttackers == 0) {
+                break;
+            }
+            int attackerType = 0;
+            long attacker = 0L;
+            for (; attackerType < BitBoard.NUM_PIECE_TYPES; attackerType++) {
+                final long candidates = sideAttackers & bitBoard.getPieces(side.ordinal() * BitBoard.NUM_PIECE_TYPES + attackerType);
+                if (candidates != 0) {
+                    attacker = candidates & -candidates;
+                    break;
+                }
+            }
+            occupied &= ~attacker;
+            attackers = bitBoard.getAttackers(to, occupied);
+            // The king cannot capture onto a defended tile
+            if (attackerType == Piece.PieceType.KING.ordinal() &&
+                    (attackers & bitBoard.getAlliancePieces(side.getOpponent())) != 0) {
+                break;
+            }
+            depth++;
+            gain[depth] = onTile - gain[depth - 1];
+            onTile = pieceValues[attackerType];
+        }
+        // Each side stops the exchange where that leaves it better off
+        for (; depth > 0; depth--) {
+            gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+        }
+        return gain[0];
+    }
+}
@@ -1,24 +1,38 @@
 package com.chess.engine.board;
 import com.chess.engine.pieces.Piece;
-import com.google.common.collect.ImmutableMap;
-import java.util.HashMap;
-import java.util.Map;
+import com.chess.engine.pieces.PieceUtils;
 
 public abstract class Tile {
     protected final int tileCoordinate;
-    private static final Map<Integer, EmptyTile> EMPTY_TILES_CACHE= createAllPossibleEmptyTiles();
-    private static Map<Integer, EmptyTile> createAllPossibleEmptyTiles(){
-        final Map<Integer, EmptyTile> emptyTileMap = new HashMap<>();
+    private static final EmptyTile[] EMPTY_TILES_CACHE = createAllPossibleEmptyTiles();
+    private static EmptyTile[] createAllPossibleEmptyTiles(){
+        final EmptyTile[] emptyTiles = new EmptyTile[BoardUtils.NUM_TILES];
         for(int i = 0; i < BoardUtils.NUM_TILES; i++){
-            emptyTileMap.put(i,new EmptyTile(i));
+            emptyTiles[i] = new EmptyTile(i);
         }
-        return ImmutableMap.copyOf(emptyTileMap);
+        return emptyTiles;
+    }
+    // One tile per shared piece instance, indexed like PieceUtils
+    private static final OccupiedTile[] OCCUPIED_TILES_CACHE = createAllPossibleOccupiedTiles();
+    private static OccupiedTile[] createAllPossibleOccupiedTiles(){
+        final OccupiedTile[] occupiedTiles = new OccupiedTile[PieceUtils.NUM_PIECES];
+        for(int i = 0; i < PieceUtils.NUM_PIECES; i++){
+            final Piece piece = PieceUtils.getPiece(i);
+            occupiedTiles[i] = new OccupiedTile(piece.getPiecePosition(), piece);
+        }
+        return occupiedTiles;
     }
     public int getTileCoordinate() {
         return this.tileCoordinate;
     }
     public static Tile createTile(final int tileCoordinate, final Piece piece){
-        return piece!=null ? new OccupiedTile(tileCoordinate,piece): EMPTY_TILES_CACHE.get(tileCoordinate);
+        if(piece == null){
+            return EMPTY_TILES_CACHE[tileCoordinate];
+        }
+        // Pieces built outside PieceUtils still get a tile of their own
+        final OccupiedTile cachedTile = OCCUPIED_TILES_CACHE[PieceUtils.indexOf(piece)];
+        return cachedTile.pieceOnTile == piece && cachedTile.tileCoordinate == tileCoordinate
+                ? cachedTile : new OccupiedTile(tileCoordinate, piece);
     }
     private Tile(final int tileCoordinate){
         this.tileCoordinate=tileCoordinate;
@@ -0,0 +1,85 @@
+package com.chess.engine.board;
+
+import com.chess.engine.pieces.Pawn;
+
+import java.util.Random;
+
+/**
+ * Zobrist keys: one random 64-bit number per (piece index, tile), one for
+ * black to move, one per castling-rights combination and one per en passant
+ * column. A position's key is the xor of the numbers for everything in it,
+ * so a move updates the key by xoring out what it removes and in what it adds.
+ */
+public final class Zobrist {
+
+    private static final long ZOBRIST_SEED = 0x2545F4914F6CDD1DL;
+
+    // Indexed by piece index * 64 + tile
+    private static final long[] PIECE_KEYS = new long[BitBoard.NUM_PIECE_INDEXES * BoardUtils.NUM_TILES];
+    private static final long[] CASTLING_KEYS = new long[CastlingRights.NUM_COMBINATIONS];
+    private static final long[] EN_PASSANT_KEYS = new long[BoardUtils.NUM_TILES_PER_ROW];
+    private static final long BLACK_TO_MOVE_KEY;
+
+    static {
+        final Random random = new Random(ZOBRIST_SEED);
+        for (int i = 0; i < PIECE_KEYS.length; i++) {
+            PIECE_KEYS[i] = random.nextLong();
+        }
+        // No rights, the common case late in a game, hashes to nothing
+        for (int rights = 1; rights < CASTLING_KEYS.length; rights++) {
+            CASTLING_KEYS[rights] = random.nextLong();
+        }
+        for (int column = 0; column < EN_PASSANT_KEYS.length; column++) {
+            EN_PASSANT_KEYS[column] = random.nextLong();
+        }
+        BLACK_TO_MOVE_KEY = random.nextLong();
+    }
+
+    private Zobrist() {
+        throw new RuntimeException("You cannot instantiate me!");
+    }
+
+    public static long piece(final int pieceIndex, final int coordinate) {
+        return PIECE_KEYS[pieceIndex * BoardUtils.NUM_TILES + coordinate];
+    }
+
+    public static long castling(final int castlingRights) {
+        return CASTLING_KEYS[castlingRights];
+    }
+
+    /**
+     * Key for an en passant target (or the pawn that can be taken) on the
+     * given tile; only its column matters. Pass -1 for none.
+     */
+    public static long enPassant(final int coordinate) {
+        return coordinate < 0 ? 0L : EN_PASSANT_KEYS[coordinate % BoardUtils.NUM_TILES_PER_ROW];
+    }
+
+    public static long enPassant(final Pawn enPassantPawn) {
+        return enPassantPawn == null ? 0L : enPassant(enPassantPawn.getPiecePosition());
+    }
+
+    public static long blackToMove() {
+        return BLACK_TO_MOVE_KEY;
+    }
+
+    /**
+     * Key of the board computed from scratch. Moves keep it up to date
+     * incrementally; this is for boards built directly and for checking.
+     */
+    public static long calculateKey(final Board board) {
+        final BitBoard bitBoard = board.getBitBoard();
+        long key = 0L;
+        for (int pieceIndex = 0; pieceIndex < BitBoard.NUM_PIECE_INDEXES; pieceIndex++) {
+            for (long pieces = bitBoard.getPieces(pieceIndex); pieces != 0; pieces &= pieces - 1) {
+                key ^= piece(pieceIndex, BitBoard.lowestCoordinate(pieces));
+            }
+        }
+        key ^= castling(board.getCastlingRights());
+        key ^= enPassant(board.getEnPassantPawn());
+        if (board.currentPlayer().getAlliance().isBlack()) {
+            key ^= BLACK_TO_MOVE_KEY;
+        }
+        return key;
+    }
+}
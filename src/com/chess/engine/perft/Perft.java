@@ -0,0 +1,199 @@
+package com.chess.engine.perft;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.Move;
+import com.chess.engine.board.MoveList;
+import com.chess.engine.board.PackedMove;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.player.MoveTransition;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Counts the leaf nodes of the legal move tree to a fixed depth. The
+ * numbers are known for standard positions, so any disagreement points at
+ * a move generation bug, and the time taken measures generator speed.
+ *
+ * By default the count runs on SearchBoard, the generator the search uses.
+ * The Board mode walks Player.getLegalMoves and Move.execute instead, to
+ * check and time the object API. Root moves can be split across threads,
+ * which then share a hash table of subtree counts.
+ */
+public final class Perft {
+
+    private final int threads;
+    private final boolean useBoardApi;
+    private final PerftHashTable hashTable;
+
+    /**
+     * @param threads     number of threads the root moves are split across
+     * @param useBoardApi count through the Board API instead of SearchBoard
+     * @param hashTable   shared subtree counts, or null for none
+     */
+    public Perft(final int threads, final boolean useBoardApi, final PerftHashTable hashTable) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        }
+        this.threads = threads;
+        this.useBoardApi = useBoardApi;
+        this.hashTable = hashTable;
+    }
+
+    public long count(final Board board, final int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        long nodes = 0;
+        for (final long subtree : divide(board, depth).values()) {
+            nodes += subtree;
+        }
+        return nodes;
+    }
+
+    /**
+     * Leaf count below each root move, in generation order, keyed by the
+     * move in long algebraic form.
+     */
+    public Map<String, Long> divide(final Board board, final int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Divide needs a depth of at least 1: " + depth);
+        }
+        final Map<String, Callable<Long>> tasks = this.useBoardApi
+                ? createBoardTasks(board, depth)
+                : createSearchBoardTasks(board, depth);
+        return runTasks(tasks);
+    }
+
+    private Map<String, Callable<Long>> createSearchBoardTasks(final Board board, final int depth) {
+        final MoveList rootMoves = new MoveList();
+        new SearchBoard(board).generateMoves(rootMoves);
+        final Map<String, Callable<Long>> tasks = new LinkedHashMap<>();
+        for (int i = 0; i < rootMoves.size(); i++) {
+            final int move = rootMoves.get(i);
+            tasks.put(PackedMove.toString(move), () -> {
+                // Each task plays on its own board; only the hash table is shared
+                final SearchBoard searchBoard = new SearchBoard(board);
+                searchBoard.makeMove(move);
+                final MoveList[] moveLists = new MoveList[depth];
+                for (int d = 0; d < depth; d++) {
+                    moveLists[d] = new MoveList();
+                }
+                return perft(searchBoard, depth - 1, moveLists);
+            });
+        }
+        return tasks;
+    }
+
+    private Map<String, Callable<Long>> createBoardTasks(final Board board, final int depth) {
+        final Map<String, Callable<Long>> tasks = new LinkedHashMap<>();
+        for (final Move move : board.currentPlayer().getLegalMoves()) {
+            final MoveTransition transition = board.currentPlayer().makeMove(move);
+            if (transition.getMoveStatus().isDone()) {
+                tasks.put(toString(move), () -> perft(transition.getTransitionBoard(), depth - 1));
+            }
+        }
+        return tasks;
+    }
+
+    private long perft(final SearchBoard board, final int depth, final MoveList[] moveLists) {
+        if (depth == 0) {
+            return 1;
+        }
+        final MoveList moves = moveLists[depth];
+        moves.clear();
+        board.generateMoves(moves);
+        // The generator only emits legal moves, so the last ply needs no make/unmake
+        if (depth == 1) {
+            return moves.size();
+        }
+        final long stored = this.hashTable != null ? this.hashTable.probe(board.getZobristKey(), depth) : -1;
+        if (stored >= 0) {
+            return stored;
+        }
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+            nodes += perft(board, depth - 1, moveLists);
+            board.unmakeMove();
+        }
+        if (this.hashTable != null) {
+            this.hashTable.store(board.getZobristKey(), depth, nodes);
+        }
+        return nodes;
+    }
+
+    private long perft(final Board board, final int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        if (depth == 1) {
+            return board.currentPlayer().getLegalMoves().size();
+        }
+        final long stored = this.hashTable != null ? this.hashTable.probe(board.getZobristKey(), depth) : -1;
+        if (stored >= 0) {
+            return stored;
+        }
+        long nodes = 0;
+        for (final Move move : board.currentPlayer().getLegalMoves()) {
+            final MoveTransition transition = board.currentPlayer().makeMove(move);
+            if (transition.getMoveStatus().isDone()) {
+                nodes += perft(transition.getTransitionBoard(), depth - 1);
+            }
+        }
+        if (this.hashTable != null) {
+            this.hashTable.store(board.getZobristKey(), depth, nodes);
+        }
+        return nodes;
+    }
+
+    private Map<String, Long> runTasks(final Map<String, Callable<Long>> tasks) {
+        final Map<String, Long> counts = new LinkedHashMap<>();
+        if (this.threads == 1) {
+            for (final Map.Entry<String, Callable<Long>> task : tasks.entrySet()) {
+                try {
+                    counts.put(task.getKey(), task.getValue().call());
+                } catch (final Exception e) {
+                    throw new RuntimeException("Perft failed below " + task.getKey(), e);
+                }
+            }
+            return Collections.unmodifiableMap(counts);
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(this.threads);
+        try {
+            final List<String> names = new ArrayList<>(tasks.keySet());
+            final List<Future<Long>> results = executor.invokeAll(tasks.values());
+            for (int i = 0; i < names.size(); i++) {
+                counts.put(names.get(i), results.get(i).get());
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Perft interrupted", e);
+        } catch (final ExecutionException e) {
+            throw new RuntimeException("Perft failed", e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+        return Collections.unmodifiableMap(counts);
+    }
+
+    /**
+     * Long algebraic form of a Board move, matching PackedMove.toString.
+     */
+    private static String toString(final Move move) {
+        final String name = BoardUtils.getPositionAtCoordinate(move.getMovedPiece().getPiecePosition()) +
+                BoardUtils.getPositionAtCoordinate(move.getDestinationCoordinate());
+        return move instanceof Move.PawnPromotion
+                ? name + ((Move.PawnPromotion) move).getPromotionType().toString().toLowerCase()
+                : name;
+    }
+}
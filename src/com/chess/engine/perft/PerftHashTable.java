@@ -0,0 +1,49 @@
+package com.chess.engine.perft;
+
+/**
+ * Subtree counts keyed by Zobrist key and depth, shared by every perft
+ * thread without locks. Each slot stores the count and the key xor the
+ * count; a slot torn by two threads writing at once no longer decodes to
+ * its key and simply reads as a miss. Colliding entries overwrite each other.
+ */
+public final class PerftHashTable {
+
+    private static final long DEPTH_MIX = 0x9E3779B97F4A7C15L;
+
+    private final long[] checks;
+    private final long[] counts;
+    private final int mask;
+
+    /**
+     * @param sizeLog2 log2 of the number of slots; each slot takes 16 bytes
+     */
+    public PerftHashTable(final int sizeLog2) {
+        if (sizeLog2 < 1 || sizeLog2 > 30) {
+            throw new IllegalArgumentException("Hash table size out of range: 2^" + sizeLog2);
+        }
+        this.checks = new long[1 << sizeLog2];
+        this.counts = new long[1 << sizeLog2];
+        this.mask = (1 << sizeLog2) - 1;
+    }
+
+    /**
+     * Stored count for the position searched to the depth, or -1 on a miss.
+     */
+    public long probe(final long zobristKey, final int depth) {
+        final long key = mix(zobristKey, depth);
+        final int slot = (int) key & this.mask;
+        final long count = this.counts[slot];
+        return (this.checks[slot] ^ count) == key && count != 0 ? count : -1;
+    }
+
+    public void store(final long zobristKey, final int depth, final long count) {
+        final long key = mix(zobristKey, depth);
+        final int slot = (int) key & this.mask;
+        this.counts[slot] = count;
+        this.checks[slot] = key ^ count;
+    }
+
+    private static long mix(final long zobristKey, final int depth) {
+        return zobristKey ^ (depth * DEPTH_MIX);
+    }
+}
@@ -0,0 +1,111 @@
+package com.chess.engine.perft;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.FenUtilities;
+import com.google.common.collect.ImmutableList;
+
+import java.io.PrintStream;
+import java.util.List;
+
+/**
+ * Well-known perft positions with their published leaf counts (see the
+ * Chess Programming Wiki "Perft Results" page). Together they cover
+ * castling, en passant, promotions, pins and checks.
+ */
+public final class PerftSuite {
+
+    public static final List<Position> POSITIONS = ImmutableList.of(
+            new Position("Start position",
+                    "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                    20L, 400L, 8902L, 197281L, 4865609L, 119060324L),
+            new Position("Kiwipete",
+                    "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                    48L, 2039L, 97862L, 4085603L, 193690690L),
+            new Position("Position 3",
+                    "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                    14L, 191L, 2812L, 43238L, 674624L, 11030083L),
+            new Position("Position 4",
+                    "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                    6L, 264L, 9467L, 422333L, 15833292L),
+            new Position("Position 4 mirrored",
+                    "r2q1rk1/pP1p2pp/Q4n2/bbp1p3/Np6/1B3NBn/pPPP1PPP/R3K2R b KQ - 0 1",
+                    6L, 264L, 9467L, 422333L, 15833292L),
+            new Position("Position 5",
+                    "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                    44L, 1486L, 62379L, 2103487L, 89941194L),
+            new Position("Position 6",
+                    "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+                    46L, 2079L, 89890L, 3894594L, 164075551L)
+    );
+
+    private PerftSuite() {
+        throw new RuntimeException("You cannot instantiate me!");
+    }
+
+    /**
+     * Runs every position to each depth whose expected count is at most
+     * maxNodes, printing count, time and nodes per second per line.
+     *
+     * @return true if every count matched
+     */
+    public static boolean run(final Perft perft, final long maxNodes, final PrintStream out) {
+        boolean passed = true;
+        long totalNodes = 0;
+        long totalNanos = 0;
+        for (final Position position : POSITIONS) {
+            final Board board = FenUtilities.createGameFromFEN(position.getFen());
+            out.println(position.getName() + ": " + position.getFen());
+            for (int depth = 1; depth <= position.getMaxDepth(); depth++) {
+                final long expected = position.getExpectedNodes(depth);
+                if (expected > maxNodes) {
+                    break;
+                }
+                final long start = System.nanoTime();
+                final long nodes = perft.count(board, depth);
+                final long elapsed = System.nanoTime() - start;
+                totalNodes += nodes;
+                totalNanos += elapsed;
+                final boolean matched = nodes == expected;
+                passed &= matched;
+                out.printf("  depth %d: %,d nodes in %,d ms (%,d nps) %s%n", depth, nodes, elapsed / 1_000_000,
+                        nodesPerSecond(nodes, elapsed), matched ? "OK" : "FAILED, expected " + expected);
+            }
+        }
+        out.printf("Total: %,d nodes in %,d ms (%,d nps) - %s%n", totalNodes, totalNanos / 1_000_000,
+                nodesPerSecond(totalNodes, totalNanos), passed ? "all counts match" : "MISMATCHES FOUND");
+        return passed;
+    }
+
+    public static long nodesPerSecond(final long nodes, final long nanos) {
+        return nanos == 0 ? 0 : nodes * 1_000_000_000L / nanos;
+    }
+
+    public static final class Position {
+
+        private final String name;
+        private final String fen;
+        private final long[] expectedNodes;
+
+        Position(final String name, final String fen, final long... expectedNodes) {
+            this.name = name;
+            this.fen = fen;
+            this.expectedNodes = expectedNodes;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public String getFen() {
+            return this.fen;
+        }
+
+        public int getMaxDepth() {
+            return this.expectedNodes.length;
+        }
+
+        public long getExpectedNodes(final int depth) {
+            return this.expectedNodes[depth - 1];
+        }
+    }
+}
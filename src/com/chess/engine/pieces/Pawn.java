@@ -1,18 +1,20 @@
 package com.chess.engine.pieces;
 
 import com.chess.engine.Alliance;
+import com.chess.engine.board.BitBoard;
 import com.chess.engine.board.Board;
 import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.LeaperAttacks;
 import com.chess.engine.board.Move;
-import com.chess.engine.board.Tile;
+import com.chess.engine.board.MoveList;
+import com.chess.engine.board.PackedMove;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
 public class Pawn extends Piece {
 
-    private static final int[] CANDIDATE_MOVE_OFFSETS = {8, 16, 7, 9};
+    private static final PieceType[] PROMOTION_TYPES = {PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT};
 
     public Pawn(final Alliance alliance, final int position) {
         super(PieceType.PAWN, position, alliance, true);
@@ -23,17 +25,19 @@ public class Pawn extends Piece {
     }
 
     @Override
-    public Collection<Move> calculateLegalMoves(final Board board) {
-        final List<Move> legalMoves = new ArrayList<>();
+    public void generateMoves(final Board board, final MoveList moves) {
+        final BitBoard bitBoard = board.getBitBoard();
         final int direction = this.getPieceAlliance().getDirection();
+        final int pieceIndex = getPieceIndex();
 
         // Single forward move
         final int forwardOne = this.piecePosition + (direction * 8);
-        if (BoardUtils.isValidTileCoordinate(forwardOne) && !board.getTile(forwardOne).isTileOccupied()) {
+        if (BoardUtils.isValidTileCoordinate(forwardOne) && !bitBoard.isOccupied(forwardOne)) {
             if (isPromotionSquare(forwardOne)) {
-                legalMoves.add(new Move.PawnPromotion(new Move.PawnMove(board, this, forwardOne)));
+                addPromotions(moves, forwardOne, PackedMove.NO_PIECE);
             } else {
-                legalMoves.add(new Move.PawnMove(board, this, forwardOne));
+                moves.add(PackedMove.create(this.piecePosition, forwardOne, pieceIndex, PackedMove.NO_PIECE,
+                        0, PackedMove.FLAG_NONE));
             }
 
             // Two squares forward from starting position
@@ -42,53 +46,44 @@ public class Pawn extends Piece {
             if (this.isFirstMove()
                     && BoardUtils.isValidTileCoordinate(forwardTwo)
                     && BoardUtils.getRow(this.piecePosition) == startingRow
-                    && !board.getTile(forwardTwo).isTileOccupied()
-                    && !board.getTile(forwardOne).isTileOccupied()) {
-                legalMoves.add(new Move.PawnJump(board, this, forwardTwo));
+                    && !bitBoard.isOccupied(forwardTwo)) {
+                moves.add(PackedMove.create(this.piecePosition, forwardTwo, pieceIndex, PackedMove.NO_PIECE,
+                        0, PackedMove.FLAG_PAWN_JUMP));
             }
         }
 
-        // Diagonal captures (left + right)
-        for (final int offset : new int[]{7, 9}) {
-            final int destination = this.piecePosition + (direction * offset);
-            if (!BoardUtils.isValidTileCoordinate(destination)) continue;
-
-            // Prevent wrap-around
-            if (offset == 7 && ((this.pieceAlliance.isWhite() && BoardUtils.FIRST_COLUMN[this.piecePosition]) ||
-                    (this.pieceAlliance.isBlack() && BoardUtils.EIGHTH_COLUMN[this.piecePosition]))) {
-                continue;
-            }
-            if (offset == 9 && ((this.pieceAlliance.isWhite() && BoardUtils.EIGHTH_COLUMN[this.piecePosition]) ||
-                    (this.pieceAlliance.isBlack() && BoardUtils.FIRST_COLUMN[this.piecePosition]))) {
-                continue;
-            }
-
-            final Tile destinationTile = board.getTile(destination);
-
-            // ✅ Normal diagonal capture
-            if (destinationTile.isTileOccupied()) {
-                final Piece pieceAtDestination = destinationTile.getPiece();
-                if (this.pieceAlliance != pieceAtDestination.getPieceAlliance()) {
-                    if (isPromotionSquare(destination)) {
-                        legalMoves.add(new Move.PawnPromotion(new Move.PawnAttackMove(board, this, destination, pieceAtDestination)));
-                    } else {
-                        legalMoves.add(new Move.PawnAttackMove(board, this, destination, pieceAtDestination));
-                    }
-                }
+        // Diagonal captures, from the per-alliance pawn attack table
+        final long attacks = LeaperAttacks.pawnAttacks(this.pieceAlliance, this.piecePosition);
+        for (long targets = attacks & bitBoard.getAlliancePieces(this.pieceAlliance.getOpponent());
+             targets != 0; targets &= targets - 1) {
+            final int destination = BitBoard.lowestCoordinate(targets);
+            if (isPromotionSquare(destination)) {
+                addPromotions(moves, destination, board.getPieceIndex(destination));
+            } else {
+                moves.add(PackedMove.create(this.piecePosition, destination, pieceIndex, board.getPieceIndex(destination),
+                        0, PackedMove.FLAG_NONE));
             }
+        }
 
-            // ✅ En-passant capture
-            else if (board.getEnPassantPawn() != null) {
-                final Pawn enPassantPawn = board.getEnPassantPawn();
-                int pawnPos = enPassantPawn.getPiecePosition();
-                if ((offset == 7 && pawnPos == (this.piecePosition - 1)) ||
-                        (offset == 9 && pawnPos == (this.piecePosition + 1))) {
-                    legalMoves.add(new Move.PawnEnPassantAttack(board, this, destination, enPassantPawn));
-                }
+        // En-passant capture onto the tile the enemy pawn jumped over
+        final Pawn enPassantPawn = board.getEnPassantPawn();
+        if (enPassantPawn != null && enPassantPawn.getPieceAlliance() != this.pieceAlliance) {
+            final int destination = enPassantPawn.getPiecePosition() + (direction * 8);
+            if ((attacks & BitBoard.squareMask(destination)) != 0) {
+                moves.add(PackedMove.create(this.piecePosition, destination, pieceIndex, enPassantPawn.getPieceIndex(),
+                        0, PackedMove.FLAG_EN_PASSANT));
             }
         }
+    }
 
-        return List.copyOf(legalMoves);
+    /**
+     * Promotions are generated queen first, then the under-promotions.
+     */
+    private void addPromotions(final MoveList moves, final int destination, final int capturedPiece) {
+        for (final PieceType promotionType : PROMOTION_TYPES) {
+            moves.add(PackedMove.create(this.piecePosition, destination, getPieceIndex(), capturedPiece,
+                    promotionType.ordinal(), PackedMove.FLAG_NONE));
+        }
     }
 
     @Override
@@ -103,7 +98,7 @@ public class Pawn extends Piece {
 
     @Override
     public Piece movePiece(final Move move) {
-        return new Pawn(move.getMovedPiece().getPieceAlliance(), move.getDestinationCoordinate(), false);
+        return PieceUtils.getPawn(move.getMovedPiece().getPieceAlliance(), move.getDestinationCoordinate(), false);
     }
 
     @Override
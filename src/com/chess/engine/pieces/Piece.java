@@ -1,10 +1,16 @@
 package com.chess.engine.pieces;
 
 import com.chess.engine.Alliance;
+import com.chess.engine.board.BitBoard;
 import com.chess.engine.board.Board;
 import com.chess.engine.board.Move;
+import com.chess.engine.board.MoveList;
+import com.chess.engine.board.PackedMove;
+import com.google.common.collect.ImmutableList;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
 
 public abstract class Piece {
@@ -70,12 +76,50 @@ public abstract class Piece {
     // ==========================================
     // Abstract methods
     // ==========================================
-    public abstract Collection<Move> calculateLegalMoves(final Board board);
+    /**
+     * Appends this piece's moves to the list as PackedMove ints.
+     */
+    public abstract void generateMoves(final Board board, final MoveList moves);
 
     public abstract Collection<Move> calculatedLegalMoves(Board board);
 
     public abstract Piece movePiece(final Move move);
 
+    /**
+     * Move objects for this piece, decoded from generateMoves. Kept for
+     * callers of the object API; the search works on packed moves.
+     */
+    public Collection<Move> calculateLegalMoves(final Board board) {
+        final MoveList moves = new MoveList();
+        generateMoves(board, moves);
+        final List<Move> legalMoves = new ArrayList<>(moves.size());
+        for (int i = 0; i < moves.size(); i++) {
+            legalMoves.add(Move.MoveFactory.createMove(board, moves.get(i)));
+        }
+        return ImmutableList.copyOf(legalMoves);
+    }
+
+    /**
+     * Index of this piece's bitboard, see BitBoard.pieceIndex.
+     */
+    public int getPieceIndex() {
+        return BitBoard.pieceIndex(this.pieceAlliance, this.pieceType);
+    }
+
+    /**
+     * Turns a bitboard of attacked tiles into packed moves: empty tiles become
+     * quiet moves, enemy-occupied tiles captures, own pieces are skipped.
+     */
+    protected void addTargetMoves(final Board board, final long attacks, final MoveList moves) {
+        final BitBoard bitBoard = board.getBitBoard();
+        final int pieceIndex = getPieceIndex();
+        for (long targets = attacks & ~bitBoard.getAlliancePieces(this.pieceAlliance); targets != 0; targets &= targets - 1) {
+            final int destination = BitBoard.lowestCoordinate(targets);
+            moves.add(PackedMove.create(this.piecePosition, destination, pieceIndex, board.getPieceIndex(destination),
+                    0, PackedMove.FLAG_NONE));
+        }
+    }
+
     // ==========================================
     // Piece Value (for AI evaluation)
     // ==========================================
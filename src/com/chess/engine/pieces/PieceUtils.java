@@ -0,0 +1,86 @@
+package com.chess.engine.pieces;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.board.BitBoard;
+import com.chess.engine.board.BoardUtils;
+
+/**
+ * Shared instances of every piece: one per type, alliance, tile and
+ * first-move flag. Pieces are immutable, so boards and moves can hand the
+ * same instance around instead of allocating a new one on every move.
+ */
+public final class PieceUtils {
+
+    public static final int NUM_PIECES = BitBoard.NUM_PIECE_INDEXES * BoardUtils.NUM_TILES * 2;
+
+    private static final Piece[] ALL_PIECES = createAllPossiblePieces();
+
+    private PieceUtils() {
+        throw new RuntimeException("You cannot instantiate me!");
+    }
+
+    private static Piece[] createAllPossiblePieces() {
+        final Piece[] pieces = new Piece[NUM_PIECES];
+        for (final Alliance alliance : Alliance.values()) {
+            for (int position = 0; position < BoardUtils.NUM_TILES; position++) {
+                for (final boolean isFirstMove : new boolean[] {false, true}) {
+                    add(pieces, new Pawn(alliance, position, isFirstMove));
+                    add(pieces, new Knight(alliance, position, isFirstMove));
+                    add(pieces, new Bishop(alliance, position, isFirstMove));
+                    add(pieces, new Rook(alliance, position, isFirstMove));
+                    add(pieces, new Queen(alliance, position, isFirstMove));
+                    add(pieces, new King(alliance, position, isFirstMove));
+                }
+            }
+        }
+        return pieces;
+    }
+
+    private static void add(final Piece[] pieces, final Piece piece) {
+        pieces[indexOf(piece)] = piece;
+    }
+
+    /**
+     * Slot of a piece in the shared table, from 0 to NUM_PIECES - 1.
+     */
+    public static int indexOf(final Piece piece) {
+        return indexOf(piece.getPieceIndex(), piece.getPiecePosition(), piece.isFirstMove());
+    }
+
+    private static int indexOf(final int pieceIndex, final int position, final boolean isFirstMove) {
+        return ((pieceIndex * BoardUtils.NUM_TILES) + position) * 2 + (isFirstMove ? 1 : 0);
+    }
+
+    public static Piece getPiece(final int index) {
+        return ALL_PIECES[index];
+    }
+
+    public static Piece getPiece(final Piece.PieceType pieceType, final Alliance alliance,
+                                 final int position, final boolean isFirstMove) {
+        return ALL_PIECES[indexOf(BitBoard.pieceIndex(alliance, pieceType), position, isFirstMove)];
+    }
+
+    public static Pawn getPawn(final Alliance alliance, final int position, final boolean isFirstMove) {
+        return (Pawn) getPiece(Piece.PieceType.PAWN, alliance, position, isFirstMove);
+    }
+
+    public static Knight getKnight(final Alliance alliance, final int position, final boolean isFirstMove) {
+        return (Knight) getPiece(Piece.PieceType.KNIGHT, alliance, position, isFirstMove);
+    }
+
+    public static Bishop getBishop(final Alliance alliance, final int position, final boolean isFirstMove) {
+        return (Bishop) getPiece(Piece.PieceType.BISHOP, alliance, position, isFirstMove);
+    }
+
+    public static Rook getRook(final Alliance alliance, final int position, final boolean isFirstMove) {
+        return (Rook) getPiece(Piece.PieceType.ROOK, alliance, position, isFirstMove);
+    }
+
+    public static Queen getQueen(final Alliance alliance, final int position, final boolean isFirstMove) {
+        return (Queen) getPiece(Piece.PieceType.QUEEN, alliance, position, isFirstMove);
+    }
+
+    public static King getKing(final Alliance alliance, final int position, final boolean isFirstMove) {
+        return (King) getPiece(Piece.PieceType.KING, alliance, position, isFirstMove);
+    }
+}
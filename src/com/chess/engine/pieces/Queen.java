@@ -2,63 +2,26 @@ package com.chess.engine.pieces;
 
 import com.chess.engine.Alliance;
 import com.chess.engine.board.Board;
-import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.MagicBitBoards;
 import com.chess.engine.board.Move;
-import com.chess.engine.board.Tile;
-import com.google.common.collect.ImmutableList;
+import com.chess.engine.board.MoveList;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
 public class Queen extends Piece {
 
-    private final static int[] CANDIDATE_MOVE_VECTOR_COORDINATE = {-9, -8, -7, -1, 1, 7, 8, 9};
-
     public Queen(final Alliance pieceAlliance, final int piecePosition) {
         super(PieceType.QUEEN, piecePosition, pieceAlliance, true);
     }
 
-    @Override
-    public Collection<Move> calculateLegalMoves(final Board board) {
-        final List<Move> legalMoves = new ArrayList<>();
-
-        for (final int candidateCoordinateOffset : CANDIDATE_MOVE_VECTOR_COORDINATE) {
-            int candidateDestinationCoordinate = this.piecePosition;
-
-            while (BoardUtils.isValidTileCoordinate(candidateDestinationCoordinate)) {
-
-                if (isFirstColumnExclusion(candidateDestinationCoordinate, candidateCoordinateOffset) ||
-                        isEighthColumnExclusion(candidateDestinationCoordinate, candidateCoordinateOffset)) {
-                    break;
-                }
-
-                candidateDestinationCoordinate += candidateCoordinateOffset;
-
-                if (BoardUtils.isValidTileCoordinate(candidateDestinationCoordinate)) {
-                    final Tile candidateDestinationTile = board.getTile(candidateDestinationCoordinate);
-
-                    if (!candidateDestinationTile.isTileOccupied()) {
-                        legalMoves.add(new Move.MajorMove(board, this, candidateDestinationCoordinate));
-                    } else {
-                        final Piece pieceAtDestination = candidateDestinationTile.getPiece();
-                        final Alliance pieceAlliance = pieceAtDestination.getPieceAlliance();
-
-                        if (this.pieceAlliance != pieceAlliance) {
-                            legalMoves.add(new Move.AttackMove(
-                                    board,
-                                    this,
-                                    candidateDestinationCoordinate,
-                                    pieceAtDestination
-                            ));
-                        }
-                        break; // stop in this direction
-                    }
-                }
-            }
-        }
+    public Queen(final Alliance pieceAlliance, final int piecePosition, final boolean isFirstMove) {
+        super(PieceType.QUEEN, piecePosition, pieceAlliance, isFirstMove);
+    }
 
-        return ImmutableList.copyOf(legalMoves);
+    @Override
+    public void generateMoves(final Board board, final MoveList moves) {
+        addTargetMoves(board, MagicBitBoards.queenAttacks(this.piecePosition, board.getBitBoard().getOccupied()), moves);
     }
 
     @Override
@@ -68,21 +31,11 @@ public class Queen extends Piece {
 
     @Override
     public Queen movePiece(final Move move) {
-        return new Queen(move.getMovedPiece().pieceAlliance, move.getDestinationCoordinate());
+        return PieceUtils.getQueen(move.getMovedPiece().getPieceAlliance(), move.getDestinationCoordinate(), false);
     }
 
     @Override
     public String toString() {
         return PieceType.QUEEN.toString();
     }
-
-    private static boolean isFirstColumnExclusion(final int currentPosition, final int candidateOffset) {
-        return BoardUtils.FIRST_COLUMN[currentPosition] &&
-                (candidateOffset == -9 || candidateOffset == -1 || candidateOffset == 7);
-    }
-
-    private static boolean isEighthColumnExclusion(final int currentPosition, final int candidateOffset) {
-        return BoardUtils.EIGHTH_COLUMN[currentPosition] &&
-                (candidateOffset == -7 || candidateOffset == 1 || candidateOffset == 9);
-    }
 }
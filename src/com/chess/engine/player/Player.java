@@ -1,60 +1,56 @@
 package com.chess.engine.player;
 
 import com.chess.engine.Alliance;
+import com.chess.engine.board.BitBoard;
 import com.chess.engine.board.Board;
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.LegalityMasks;
 import com.chess.engine.board.Move;
+import com.chess.engine.board.MoveList;
 import com.chess.engine.pieces.King;
 import com.chess.engine.pieces.Piece;
 import com.google.common.collect.ImmutableList;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Common player functionality.
  * Subclasses must implement getActivePieces(), getAlliance(), getOpponent(),
- * and calculateKingCastles(...) which returns the player's castling moves.
+ * and calculateKingCastles() which returns the player's castling moves.
  */
 public abstract class Player {
 
     protected final Board board;
     protected final King playerKing;
-    protected final Collection<Move> legalMoves;
-    private final boolean isInCheck;
+    // Memoized on first access; volatile because boards are shared with search threads
+    private volatile Collection<Move> legalMoves;
+    private volatile Map<Integer, Move> legalMoveIndex;
+    private volatile int checkStatus = UNKNOWN;
+    private volatile int escapeStatus = UNKNOWN;
+
+    private static final int UNKNOWN = 0;
+    private static final int IN_CHECK = 1;
+    private static final int NOT_IN_CHECK = 2;
+    private static final int HAS_ESCAPE_MOVES = 1;
+    private static final int NO_ESCAPE_MOVES = 2;
 
     /**
-     * Constructor: note that playerLegalMoves and opponentLegalMoves are passed in
-     * by the Board while the board and players are constructed.
+     * Constructor: only locates the king. Legal moves, castles and check status
+     * are computed on first access from the board's memoized piece moves.
      */
-    Player(final Board board,
-           final Collection<Move> playerLegalMoves,
-           final Collection<Move> opponentLegalMoves) {
+    Player(final Board board) {
         this.board = board;
         this.playerKing = establishKing();
-        // Start with the moves already computed for the player's pieces
-        final List<Move> combined = new ArrayList<>(playerLegalMoves);
-        // Add castling moves computed with the help of opponent moves
-        combined.addAll(calculateKingCastles(playerLegalMoves, opponentLegalMoves));
-        this.legalMoves = ImmutableList.copyOf(combined);
-        this.isInCheck = !calculateAttacksOnTile(this.playerKing.getPiecePosition(), opponentLegalMoves).isEmpty();
     }
 
     public King getPlayerKing() {
         return this.playerKing;
     }
 
-    protected static Collection<Move> calculateAttacksOnTile(final int piecePosition,
-                                                             final Collection<Move> moves) {
-        final List<Move> attackMoves = new ArrayList<>();
-        for (final Move move : moves) {
-            if (piecePosition == move.getDestinationCoordinate()) {
-                attackMoves.add(move);
-            }
-        }
-        return ImmutableList.copyOf(attackMoves);
-    }
-
     private King establishKing() {
         for (final Piece piece : getActivePieces()) {
             if (piece.getPieceType().isKing()) {
@@ -65,25 +61,86 @@ public abstract class Player {
     }
 
     public boolean isMoveLegal(final Move move) {
-        return this.legalMoves.contains(move);
+        final Move legalMove = findLegalMove(move.getCurrentCoordinate(), move.getDestinationCoordinate(),
+                move.getPromotionType());
+        return legalMove != Move.NULL_MOVE && legalMove.equals(move);
+    }
+
+    /**
+     * The legal move between the two tiles, or Move.NULL_MOVE if there is
+     * none. Pass the piece type for a promotion; null picks the queen. The
+     * index behind it is built from the legal moves on the first lookup.
+     */
+    public Move findLegalMove(final int currentCoordinate, final int destinationCoordinate,
+                              final Piece.PieceType promotionType) {
+        Map<Integer, Move> index = this.legalMoveIndex;
+        if (index == null) {
+            index = createLegalMoveIndex(getLegalMoves());
+            this.legalMoveIndex = index;
+        }
+        final Move move = index.get(indexKey(currentCoordinate, destinationCoordinate, promotionType));
+        return move != null ? move : Move.NULL_MOVE;
+    }
+
+    private static Map<Integer, Move> createLegalMoveIndex(final Collection<Move> legalMoves) {
+        final Map<Integer, Move> index = new HashMap<>(legalMoves.size() * 2);
+        for (final Move move : legalMoves) {
+            final int from = move.getCurrentCoordinate();
+            final int to = move.getDestinationCoordinate();
+            index.put(indexKey(from, to, move.getPromotionType()), move);
+            if (move.getPromotionType() == Piece.PieceType.QUEEN) {
+                index.put(indexKey(from, to, null), move);
+            }
+        }
+        return index;
+    }
+
+    private static int indexKey(final int from, final int to, final Piece.PieceType promotionType) {
+        final int promotion = promotionType == null ? 0 : promotionType.ordinal() + 1;
+        return (from * BoardUtils.NUM_TILES + to) * (BitBoard.NUM_PIECE_TYPES + 1) + promotion;
     }
 
     public boolean isInCheck() {
-        return this.isInCheck;
+        int status = this.checkStatus;
+        if (status == UNKNOWN) {
+            status = this.board.isKingInCheck(getAlliance()) ? IN_CHECK : NOT_IN_CHECK;
+            this.checkStatus = status;
+        }
+        return status == IN_CHECK;
     }
 
     public boolean isInCheckMate() {
-        return this.isInCheck && !hasEscapeMoves();
+        return isInCheck() && !hasEscapeMoves();
     }
 
     public boolean isInStaleMate() {
-        return !this.isInCheck && !hasEscapeMoves();
+        return !isInCheck() && !hasEscapeMoves();
     }
 
+    /**
+     * Does the player have any legal move? Memoized. Unless the legal moves
+     * are already built, stops at the first packed move that passes the check
+     * and pin masks, without creating Move objects or boards. Castles are
+     * skipped: a legal castle means the king may also step beside itself.
+     */
     public boolean hasEscapeMoves() {
-        for (final Move move : this.legalMoves) {
-            final MoveTransition transition = makeMove(move);
-            if (transition.getMoveStatus().isDone()) {
+        int status = this.escapeStatus;
+        if (status == UNKNOWN) {
+            status = calculateHasEscapeMoves() ? HAS_ESCAPE_MOVES : NO_ESCAPE_MOVES;
+            this.escapeStatus = status;
+        }
+        return status == HAS_ESCAPE_MOVES;
+    }
+
+    private boolean calculateHasEscapeMoves() {
+        final Collection<Move> legalMoves = this.legalMoves;
+        if (legalMoves != null) {
+            return !legalMoves.isEmpty();
+        }
+        final MoveList pieceMoves = this.board.getPackedPieceMoves(getAlliance());
+        final LegalityMasks legality = new LegalityMasks(this.board.getBitBoard(), getAlliance());
+        for (int i = 0; i < pieceMoves.size(); i++) {
+            if (legality.isLegal(pieceMoves.get(i))) {
                 return true;
             }
         }
@@ -95,27 +152,48 @@ public abstract class Player {
     }
 
     public MoveTransition makeMove(final Move move) {
-        if (!isMoveLegal(move)) {
+        final Move legalMove = findLegalMove(move.getCurrentCoordinate(), move.getDestinationCoordinate(),
+                move.getPromotionType());
+        if (legalMove == Move.NULL_MOVE || !legalMove.equals(move)) {
             return new MoveTransition(this.board, move, MoveStatus.ILLEGAL_MOVE);
         }
 
-        final Board transitionBoard = move.execute();
-
-        // After making the move, make sure opponent cannot attack our king
-        final Collection<Move> kingAttacks = calculateAttacksOnTile(
-                transitionBoard.currentPlayer().getOpponent().getPlayerKing().getPiecePosition(),
-                transitionBoard.currentPlayer().getLegalMoves()
-        );
+        // Legal moves never leave the king in check, so there is nothing to test afterwards.
+        // An equal move made on another board is played as this board's own.
+        return new MoveTransition(legalMove.execute(), move, MoveStatus.DONE);
+    }
 
-        if (!kingAttacks.isEmpty()) {
-            return new MoveTransition(this.board, move, MoveStatus.LEAVES_PLAYER_IN_CHECK);
+    /**
+     * The player's piece moves that survive the check and pin masks, plus
+     * the castles, which also need the king out of check. Only the surviving
+     * packed moves are turned into Move objects.
+     */
+    public Collection<Move> getLegalMoves() {
+        Collection<Move> legalMoves = this.legalMoves;
+        if (legalMoves == null) {
+            final MoveList pieceMoves = this.board.getPackedPieceMoves(getAlliance());
+            final LegalityMasks legality = new LegalityMasks(this.board.getBitBoard(), getAlliance());
+            final List<Move> playerLegals = new ArrayList<>(pieceMoves.size());
+            for (int i = 0; i < pieceMoves.size(); i++) {
+                if (legality.isLegal(pieceMoves.get(i))) {
+                    playerLegals.add(Move.MoveFactory.createMove(this.board, pieceMoves.get(i)));
+                }
+            }
+            if (!legality.isInCheck()) {
+                playerLegals.addAll(calculateKingCastles());
+            }
+            legalMoves = ImmutableList.copyOf(playerLegals);
+            this.legalMoves = legalMoves;
         }
-
-        return new MoveTransition(transitionBoard, move, MoveStatus.DONE);
+        return legalMoves;
     }
 
-    public Collection<Move> getLegalMoves() {
-        return this.legalMoves;
+    /**
+     * Drops the memoized legal moves and their index, see Board.releaseMoveLists.
+     */
+    public void releaseLegalMoves() {
+        this.legalMoves = null;
+        this.legalMoveIndex = null;
     }
 
     // Abstract methods to be implemented by concrete players (WhitePlayer, BlackPlayer)
@@ -124,14 +202,13 @@ public abstract class Player {
     public abstract Player getOpponent();
 
     /**
-     * Compute castling moves for this player.
+     * Compute castling moves for this player, assuming the king is not in check.
      * Implemented in WhitePlayer and BlackPlayer.
      */
-    protected abstract Collection<Move> calculateKingCastles(Collection<Move> playerLegals,
-                                                             Collection<Move> opponentLegals);
+    protected abstract Collection<Move> calculateKingCastles();
 
     // ✅ Fixed missing return statement
     public boolean isInStalemate() {
-        return !this.isInCheck && !hasEscapeMoves();
+        return !isInCheck() && !hasEscapeMoves();
     }
 }
@@ -1,6 +1,7 @@
 package com.chess.engine.player;
 
 import com.chess.engine.Alliance;
+import com.chess.engine.board.BitBoard;
 import com.chess.engine.board.Board;
 import com.chess.engine.board.Move;
 import com.chess.engine.board.Tile;
@@ -14,10 +15,8 @@ import java.util.List;
 
 public class WhitePlayer extends Player {
 
-    public WhitePlayer(final Board board,
-                       final Collection<Move> playerLegalMoves,
-                       final Collection<Move> opponentLegalMoves) {
-        super(board, playerLegalMoves, opponentLegalMoves);
+    public WhitePlayer(final Board board) {
+        super(board);
     }
 
     @Override
@@ -36,12 +35,12 @@ public class WhitePlayer extends Player {
     }
 
     /**
-     * Castling logic for white. Uses static checks + opponent attacks (passed in).
+     * Castling logic for white. Uses static checks + the opponent's attack map.
      */
     @Override
-    protected Collection<Move> calculateKingCastles(final Collection<Move> playerLegals,
-                                                    final Collection<Move> opponentLegals) {
+    protected Collection<Move> calculateKingCastles() {
         final List<Move> kingCastles = new ArrayList<>();
+        final long opponentAttacks = this.board.getAttackMap(getAlliance().getOpponent());
 
         // Basic sanity
         if (!this.playerKing.isFirstMove()) {
@@ -57,12 +56,10 @@ public class WhitePlayer extends Player {
         if (kingSideRookTile != null && kingSideRookTile.isTileOccupied()) {
             final Piece rook = kingSideRookTile.getPiece();
             if (rook.getPieceType().isRook() && rook.isFirstMove()) {
-                final Tile t1 = this.board.getTile(kingPos + 1);
-                final Tile t2 = this.board.getTile(kingPos + 2);
-                if (!t1.isTileOccupied() && !t2.isTileOccupied()) {
+                final BitBoard bitBoard = this.board.getBitBoard();
+                if (!bitBoard.isOccupied(kingPos + 1) && !bitBoard.isOccupied(kingPos + 2)) {
                     // ensure squares king moves through are not attacked by opponent
-                    boolean tilesSafe = Player.calculateAttacksOnTile(kingPos + 1, opponentLegals).isEmpty()
-                            && Player.calculateAttacksOnTile(kingPos + 2, opponentLegals).isEmpty();
+                    final boolean tilesSafe = (opponentAttacks & (BitBoard.squareMask(kingPos + 1) | BitBoard.squareMask(kingPos + 2))) == 0;
                     if (tilesSafe) {
                         kingCastles.add(new Move.KingSideCastleMove(this.board,
                                 this.playerKing, kingPos + 2,
@@ -77,12 +74,10 @@ public class WhitePlayer extends Player {
         if (queenSideRookTile != null && queenSideRookTile.isTileOccupied()) {
             final Piece rook = queenSideRookTile.getPiece();
             if (rook.getPieceType().isRook() && rook.isFirstMove()) {
-                final Tile t1 = this.board.getTile(kingPos - 1);
-                final Tile t2 = this.board.getTile(kingPos - 2);
-                final Tile t3 = this.board.getTile(kingPos - 3);
-                if (!t1.isTileOccupied() && !t2.isTileOccupied() && !t3.isTileOccupied()) {
-                    boolean tilesSafe = Player.calculateAttacksOnTile(kingPos - 1, opponentLegals).isEmpty()
-                            && Player.calculateAttacksOnTile(kingPos - 2, opponentLegals).isEmpty();
+                final BitBoard bitBoard = this.board.getBitBoard();
+                if (!bitBoard.isOccupied(kingPos - 1) && !bitBoard.isOccupied(kingPos - 2)
+                        && !bitBoard.isOccupied(kingPos - 3)) {
+                    final boolean tilesSafe = (opponentAttacks & (BitBoard.squareMask(kingPos - 1) | BitBoard.squareMask(kingPos - 2))) == 0;
                     if (tilesSafe) {
                         kingCastles.add(new Move.QueenSideCastleMove(this.board,
                                 this.playerKing, kingPos - 2,
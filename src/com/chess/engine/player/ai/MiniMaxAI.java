@@ -1,115 +1,714 @@
-package com.chess.engine.player.ai;
-
-import com.chess.engine.board.Board;
-import com.chess.engine.board.Move;
-import com.chess.engine.player.MoveTransition;
-import com.chess.engine.player.Player;
-
-public class MiniMaxAI {
-
-    private final int searchDepth;
-
-    public MiniMaxAI(final int searchDepth) {
-        this.searchDepth = searchDepth;
-    }
-
-    public Move execute(final Board board) {
-        Move bestMove = null;
-        int highestSeenValue = Integer.MIN_VALUE;
-
-        for (final Move move : board.currentPlayer().getLegalMoves()) {
-            final MoveTransition transition = board.currentPlayer().makeMove(move);
-            if (transition.getMoveStatus().isDone()) {
-                int captureBonus = 0;
-                if (move.isAttack()) {
-                    captureBonus = getPieceValue(move.getAttackedPiece().getPieceType().name()) / 2;
-                }
-
-                final int currentValue = min(transition.getTransitionBoard(),
-                        this.searchDepth - 1,
-                        Integer.MIN_VALUE,
-                        Integer.MAX_VALUE) + captureBonus;
-
-                if (currentValue > highestSeenValue) {
-                    highestSeenValue = currentValue;
-                    bestMove = move;
-                }
-            }
-        }
-        return bestMove;
-    }
-
-    private int max(final Board board, final int depth, int alpha, int beta) {
-        if (depth == 0 || isEndGame(board)) {
-            return evaluateBoard(board);
-        }
-
-        int highestValue = Integer.MIN_VALUE;
-        for (final Move move : board.currentPlayer().getLegalMoves()) {
-            final MoveTransition transition = board.currentPlayer().makeMove(move);
-            if (transition.getMoveStatus().isDone()) {
-                final int currentValue = min(transition.getTransitionBoard(), depth - 1, alpha, beta);
-                highestValue = Math.max(highestValue, currentValue);
-                alpha = Math.max(alpha, highestValue);
-                if (beta <= alpha) break;
-            }
-        }
-        return highestValue;
-    }
-
-    private int min(final Board board, final int depth, int alpha, int beta) {
-        if (depth == 0 || isEndGame(board)) {
-            return evaluateBoard(board);
-        }
-
-        int lowestValue = Integer.MAX_VALUE;
-        for (final Move move : board.currentPlayer().getLegalMoves()) {
-            final MoveTransition transition = board.currentPlayer().makeMove(move);
-            if (transition.getMoveStatus().isDone()) {
-                final int currentValue = max(transition.getTransitionBoard(), depth - 1, alpha, beta);
-                lowestValue = Math.min(lowestValue, currentValue);
-                beta = Math.min(beta, lowestValue);
-                if (beta <= alpha) break;
-            }
-        }
-        return lowestValue;
-    }
-
-    private boolean isEndGame(final Board board) {
-        return board.currentPlayer().isInCheckMate() || board.currentPlayer().isInStaleMate();
-    }
-
-    private int evaluateBoard(final Board board) {
-        return scorePlayer(board.whitePlayer()) - scorePlayer(board.blackPlayer());
-    }
-
-    private int scorePlayer(final Player player) {
-        int score = 0;
-
-        // Base material score
-        for (final com.chess.engine.pieces.Piece piece : player.getActivePieces()) {
-            score += getPieceValue(piece.getPieceType().name());
-        }
-
-        // Mobility
-        score += player.getLegalMoves().size() * 5;
-
-        // Check/Checkmate penalties
-        if (player.isInCheck()) score -= 50;
-        if (player.isInCheckMate()) score -= 10000;
-
-        return score;
-    }
-
-    private int getPieceValue(String pieceType) {
-        switch (pieceType) {
-            case "PAWN": return 100;
-            case "KNIGHT": return 320;
-            case "BISHOP": return 330;
-            case "ROOK": return 500;
-            case "QUEEN": return 900;
-            case "KING": return 20000;
-            default: return 0;
-        }
-    }
-}
+package com.chess.engine.player.ai;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.board.BitBoard;
+import com.chess.engine.board.Board;
+import com.chess.engine.board.LeaperAttacks;
+import com.chess.engine.board.MagicBitBoards;
+import com.chess.engine.board.Move;
+import com.chess.engine.board.MoveList;
+import com.chess.engine.board.PackedMove;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.pieces.Piece;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Alpha-beta minimax. The search runs on a mutable SearchBoard with
+ * make/unmake; only the chosen root move is turned back into a Board Move.
+ * Scores are from white's point of view: white maximizes, black minimizes.
+ * At the horizon a quiescence search plays out the captures before scoring.
+ * Results are kept in a TranspositionTable, which may be shared with
+ * other searches, and survive from one move to the next.
+ */
+public class MiniMaxAI {
+
+    private static final int CHECKMATE_SCORE = 100000;
+    // Scores at least this far from zero are mates, stored relative to the node
+    private static final int MATE_THRESHOLD = CHECKMATE_SCORE - 1000;
+    public static final int DEFAULT_HASH_MB = 16;
+    static final int[] PIECE_VALUES = {100, 320, 330, 500, 900, 20000};
+    static final int KING_INDEX = Piece.PieceType.KING.ordinal();
+
+    // Nodes between looks at the clock
+    private static final int TIME_CHECK_INTERVAL_MASK = 1023;
+    // Captures deeper than this past the horizon are not searched
+    private static final int MAX_QUIESCENCE_PLY = 32;
+    // Positional swing a capture may bring beyond the material it wins
+    private static final int DELTA_MARGIN = 200;
+    // Plies taken off captures that lose material by static exchange evaluation
+    static final int BAD_CAPTURE_REDUCTION = 1;
+
+    private final SearchLimits limits;
+    private final TranspositionTable transpositionTable;
+    private final int threads;
+    private final Parallelism parallelism;
+    private MovePicker[] movePickers;
+    private MovePicker[] quiescencePickers;
+    private int[][] killers;
+    private long nodesSearched;
+    private int completedDepth;
+    private int rootValue;
+    private long deadline;
+    private boolean stopped;
+    // Polled instead of the clock by helpers and split workers, null in the main search
+    private BooleanSupplier stopCondition;
+    // Split workers only take table scores of the exact depth, so results do not depend on timing
+    private boolean exactDepthOnly;
+    // Set for the duration of a split-point search
+    private SplitSearch splitSearch;
+
+    /**
+     * How threads beyond the first share the work of a move.
+     */
+    public enum Parallelism {
+        /** Helpers search the whole tree and share only the transposition table. */
+        LAZY_SMP,
+        /** The tree near the root is split into tasks; results may vary from run to run. */
+        YOUNG_BROTHERS_WAIT
+    }
+
+    public MiniMaxAI(final int searchDepth) {
+        this(SearchLimits.depth(searchDepth));
+    }
+
+    public MiniMaxAI(final SearchLimits limits) {
+        this(limits, new TranspositionTable(DEFAULT_HASH_MB));
+    }
+
+    public MiniMaxAI(final SearchLimits limits, final TranspositionTable transpositionTable) {
+        this(limits, transpositionTable, 1);
+    }
+
+    /**
+     * @param threads threads searching each move; beyond the first they
+     *                are Lazy SMP helpers feeding the shared table
+     */
+    public MiniMaxAI(final SearchLimits limits, final TranspositionTable transpositionTable, final int threads) {
+        this(limits, transpositionTable, threads, Parallelism.LAZY_SMP);
+    }
+
+    public MiniMaxAI(final SearchLimits limits, final TranspositionTable transpositionTable, final int threads,
+                     final Parallelism parallelism) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        }
+        this.limits = limits;
+        this.transpositionTable = transpositionTable;
+        this.threads = threads;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Checks the staged move picker against full move generation on the
+     * board, see MovePicker.selfCheck.
+     *
+     * @return true if every check passed
+     */
+    public static boolean selfCheck(final Board board) {
+        return MovePicker.selfCheck(new SearchBoard(board));
+    }
+
+    /**
+     * Nodes searched for the last move, by all threads together.
+     */
+    public long getNodesSearched() {
+        return this.nodesSearched;
+    }
+
+    /**
+     * Depth of the last fully searched iteration, the one the move came from.
+     */
+    public int getCompletedDepth() {
+        return this.completedDepth;
+    }
+
+    public TranspositionTable getTranspositionTable() {
+        return this.transpositionTable;
+    }
+
+    public int getThreads() {
+        return this.threads;
+    }
+
+    public Parallelism getParallelism() {
+        return this.parallelism;
+    }
+
+    /**
+     * Deepens one ply at a time, searching the previous iteration's best
+     * move first, until the depth limit or the time budget is reached. An
+     * iteration cut short by the clock is thrown away and the move of the
+     * last complete one is returned; the first iteration always completes.
+     */
+    public Move execute(final Board board) {
+        final long start = System.nanoTime();
+        prepare(start);
+        this.transpositionTable.newSearch();
+
+        final SearchBoard searchBoard = new SearchBoard(board);
+        final MoveList rootMoves = new MoveList();
+        searchBoard.generateMoves(rootMoves);
+        final Move[] boardMoves = new Move[rootMoves.size()];
+        for (int i = 0; i < rootMoves.size(); i++) {
+            final int packedMove = rootMoves.get(i);
+            boardMoves[i] = Move.MoveFactory.createMove(board, PackedMove.getFrom(packedMove),
+                    PackedMove.getTo(packedMove), PackedMove.getPromotionType(packedMove));
+        }
+        if (this.threads == 1 || rootMoves.size() == 0) {
+            return iterate(searchBoard, rootMoves, boardMoves, 1, start);
+        }
+        if (this.parallelism == Parallelism.YOUNG_BROTHERS_WAIT) {
+            return executeSplit(board, searchBoard, rootMoves, boardMoves, start);
+        }
+        return executeWithHelpers(board, searchBoard, rootMoves, boardMoves, start);
+    }
+
+    /**
+     * Young Brothers Wait on a fork/join pool, see SplitSearch.
+     */
+    private Move executeSplit(final Board board, final SearchBoard searchBoard, final MoveList rootMoves,
+                              final Move[] boardMoves, final long start) {
+        final ForkJoinPool pool = new ForkJoinPool(this.threads);
+        try {
+            this.splitSearch = new SplitSearch(this, board, this.limits, this.transpositionTable, pool, start);
+            this.exactDepthOnly = true;
+            final Move bestMove = iterate(searchBoard, rootMoves, boardMoves, 1, start);
+            this.nodesSearched = this.splitSearch.getNodesSearched();
+            return bestMove;
+        } finally {
+            this.splitSearch = null;
+            this.exactDepthOnly = false;
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Lazy SMP: helper threads search the same root, half of them starting
+     * a ply deeper so the threads spread over different depths, and share
+     * what they find through the transposition table. Only this thread's
+     * result is played; the helpers are stopped as soon as it is ready.
+     */
+    private Move executeWithHelpers(final Board board, final SearchBoard searchBoard, final MoveList rootMoves,
+                                    final Move[] boardMoves, final long start) {
+        final AtomicBoolean helperStopSignal = new AtomicBoolean();
+        final List<MiniMaxAI> helpers = new ArrayList<>();
+        final List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 1; i < this.threads; i++) {
+            final MiniMaxAI helper = new MiniMaxAI(this.limits, this.transpositionTable);
+            helper.stopCondition = helperStopSignal::get;
+            // Each helper gets its own boards and root list; only the Move objects are shared, and they are immutable
+            final SearchBoard helperBoard = new SearchBoard(board);
+            final MoveList helperMoves = new MoveList(rootMoves.size());
+            helperMoves.addRange(rootMoves, 0, rootMoves.size());
+            final Move[] helperBoardMoves = boardMoves.clone();
+            final int startDepth = 1 + i % 2;
+            helpers.add(helper);
+            tasks.add(() -> {
+                helper.prepare(start);
+                helper.iterate(helperBoard, helperMoves, helperBoardMoves, startDepth, start);
+                return null;
+            });
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(this.threads - 1);
+        try {
+            final List<Future<Void>> results = new ArrayList<>();
+            for (final Callable<Void> task : tasks) {
+                results.add(executor.submit(task));
+            }
+            final Move bestMove = iterate(searchBoard, rootMoves, boardMoves, 1, start);
+            helperStopSignal.set(true);
+            for (final Future<Void> result : results) {
+                result.get();
+            }
+            for (final MiniMaxAI helper : helpers) {
+                this.nodesSearched += helper.nodesSearched;
+            }
+            return bestMove;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Search interrupted", e);
+        } catch (final ExecutionException e) {
+            throw new RuntimeException("Search helper failed", e.getCause());
+        } finally {
+            helperStopSignal.set(true);
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Readies this instance to search nodes for a SplitSearch.
+     */
+    void prepareWorker(final long start) {
+        prepare(start);
+        this.exactDepthOnly = true;
+    }
+
+    private void prepare(final long start) {
+        this.deadline = this.limits.isTimed() ? start + this.limits.getTimeBudgetMillis() * 1_000_000 : Long.MAX_VALUE;
+        this.stopped = false;
+        this.completedDepth = 0;
+        this.nodesSearched = 0;
+        final int maxDepth = this.limits.getMaxDepth();
+        // One reusable picker per remaining depth, so the search itself allocates nothing
+        this.movePickers = new MovePicker[maxDepth + 1];
+        for (int i = 0; i <= maxDepth; i++) {
+            this.movePickers[i] = new MovePicker();
+        }
+        this.quiescencePickers = new MovePicker[MAX_QUIESCENCE_PLY];
+        for (int i = 0; i < MAX_QUIESCENCE_PLY; i++) {
+            this.quiescencePickers[i] = new MovePicker();
+        }
+        this.killers = new int[maxDepth + 1][2];
+    }
+
+    private Move iterate(final SearchBoard searchBoard, final MoveList rootMoves, final Move[] boardMoves,
+                         final int startDepth, final long start) {
+        Move bestMove = null;
+        for (int depth = startDepth; depth <= this.limits.getMaxDepth(); depth++) {
+            final int bestIndex;
+            if (this.splitSearch != null) {
+                bestIndex = this.splitSearch.searchRoot(rootMoves, boardMoves, depth);
+                this.stopped = this.splitSearch.isStopped();
+                this.rootValue = this.splitSearch.getRootValue();
+            } else {
+                bestIndex = searchRoot(searchBoard, rootMoves, boardMoves, depth);
+            }
+            if (this.stopped || bestIndex < 0) {
+                break;
+            }
+            moveToFront(rootMoves, boardMoves, bestIndex);
+            bestMove = boardMoves[0];
+            this.completedDepth = depth;
+            // The next iteration takes several times longer than this one, so it would not finish
+            final boolean halfBudgetUsed = this.limits.isTimed() &&
+                    (System.nanoTime() - start) / 1_000_000 >= this.limits.getTimeBudgetMillis() / 2;
+            final boolean onlyMove = this.limits.isTimed() && rootMoves.size() == 1;
+            if (halfBudgetUsed || onlyMove || Math.abs(this.rootValue) >= MATE_THRESHOLD) {
+                break;
+            }
+        }
+        return bestMove;
+    }
+
+    /**
+     * Searches every root move to the depth and returns the index of the
+     * best, or -1 when there is none. Leaves its score in rootValue.
+     */
+    private int searchRoot(final SearchBoard searchBoard, final MoveList rootMoves,
+                           final Move[] boardMoves, final int depth) {
+        final boolean whiteToMove = searchBoard.getSideToMove().isWhite();
+        int bestIndex = -1;
+        int bestSeenValue = whiteToMove ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        for (int i = 0; i < rootMoves.size(); i++) {
+            final Move move = boardMoves[i];
+            if (move == Move.NULL_MOVE) {
+                continue;
+            }
+            searchBoard.makeMove(rootMoves.get(i));
+            // A move that cannot beat the best so far only needs to be proven no better
+            final int currentValue = whiteToMove
+                    ? min(searchBoard, depth - 1, bestSeenValue, Integer.MAX_VALUE)
+                    : max(searchBoard, depth - 1, Integer.MIN_VALUE, bestSeenValue);
+            searchBoard.unmakeMove();
+            if (this.stopped) {
+                return bestIndex;
+            }
+
+            if (whiteToMove ? currentValue > bestSeenValue : currentValue < bestSeenValue) {
+                bestSeenValue = currentValue;
+                bestIndex = i;
+            }
+        }
+        this.rootValue = bestSeenValue;
+        return bestIndex;
+    }
+
+    /**
+     * Searches one node to the depth within the window, for a SplitSearch
+     * worker. The search gives up once stopCondition holds, after which
+     * isStopped is true and the value is meaningless. Killers are cleared
+     * first, so move order does not depend on which tasks this worker's
+     * thread happened to run before.
+     */
+    int searchNode(final SearchBoard board, final int depth, final int alpha, final int beta,
+                   final BooleanSupplier stopCondition) {
+        this.stopCondition = stopCondition;
+        this.stopped = false;
+        for (final int[] depthKillers : this.killers) {
+            Arrays.fill(depthKillers, PackedMove.NONE);
+        }
+        return board.getSideToMove().isWhite() ? max(board, depth, alpha, beta) : min(board, depth, alpha, beta);
+    }
+
+    boolean isStopped() {
+        return this.stopped;
+    }
+
+    /**
+     * Shifts the move at index to the front, keeping the others in order.
+     */
+    private static void moveToFront(final MoveList rootMoves, final Move[] boardMoves, final int index) {
+        final Move move = boardMoves[index];
+        for (int i = index; i > 0; i--) {
+            rootMoves.swap(i, i - 1);
+            boardMoves[i] = boardMoves[i - 1];
+        }
+        boardMoves[0] = move;
+    }
+
+    /**
+     * Whether the time budget has run out, or for a helper or split worker
+     * whether it has been told to stop, looking only every few nodes. The main search's
+     * first iteration is never stopped, so there is always a move to return.
+     */
+    private boolean isOutOfTime() {
+        if (!this.stopped && (this.nodesSearched & TIME_CHECK_INTERVAL_MASK) == 0) {
+            if (this.stopCondition != null) {
+                this.stopped = this.stopCondition.getAsBoolean();
+            } else {
+                this.stopped = this.limits.isTimed() && this.completedDepth > 0 &&
+                        System.nanoTime() - this.deadline >= 0;
+            }
+        }
+        return this.stopped;
+    }
+
+    private int max(final SearchBoard board, final int depth, int alpha, final int beta) {
+        this.nodesSearched++;
+        if (isOutOfTime()) {
+            return 0;
+        }
+        if (depth == 0) {
+            return quiesce(board, 0, alpha, beta);
+        }
+        final long zobristKey = board.getZobristKey();
+        final long entry = this.transpositionTable.probe(zobristKey);
+        if (isUsableEntry(entry, depth, alpha, beta)) {
+            return fromTableScore(TranspositionTable.getScore(entry), depth);
+        }
+        final int originalAlpha = alpha;
+
+        int highestValue = Integer.MIN_VALUE;
+        int bestMove = PackedMove.NONE;
+        final MovePicker picker = this.movePickers[depth];
+        picker.init(board, TranspositionTable.getMove(entry), this.killers[depth][0], this.killers[depth][1]);
+        final boolean reduceBadCaptures = depth > BAD_CAPTURE_REDUCTION + 1 && !board.isInCheck();
+        for (int move = picker.next(); move != PackedMove.NONE; move = picker.next()) {
+            board.makeMove(move);
+            int currentValue;
+            if (reduceBadCaptures && picker.isLosingCapture()) {
+                // A losing capture gets a shallower look, and a full one only if it still beats alpha
+                currentValue = min(board, depth - 1 - BAD_CAPTURE_REDUCTION, alpha, beta);
+                if (!this.stopped && currentValue > alpha) {
+                    currentValue = min(board, depth - 1, alpha, beta);
+                }
+            } else {
+                currentValue = min(board, depth - 1, alpha, beta);
+            }
+            board.unmakeMove();
+            if (this.stopped) {
+                return 0;
+            }
+            if (currentValue > highestValue) {
+                highestValue = currentValue;
+                bestMove = move;
+            }
+            alpha = Math.max(alpha, highestValue);
+            if (beta <= alpha) {
+                storeKiller(depth, move);
+                break;
+            }
+        }
+        if (bestMove == PackedMove.NONE) {
+            highestValue = scoreNoLegalMoves(board, depth);
+        }
+        storeEntry(zobristKey, bestMove, depth, highestValue, originalAlpha, beta);
+        return highestValue;
+    }
+
+    private int min(final SearchBoard board, final int depth, final int alpha, int beta) {
+        this.nodesSearched++;
+        if (isOutOfTime()) {
+            return 0;
+        }
+        if (depth == 0) {
+            return quiesce(board, 0, alpha, beta);
+        }
+        final long zobristKey = board.getZobristKey();
+        final long entry = this.transpositionTable.probe(zobristKey);
+        if (isUsableEntry(entry, depth, alpha, beta)) {
+            return fromTableScore(TranspositionTable.getScore(entry), depth);
+        }
+        final int originalBeta = beta;
+
+        int lowestValue = Integer.MAX_VALUE;
+        int bestMove = PackedMove.NONE;
+        final MovePicker picker = this.movePickers[depth];
+        picker.init(board, TranspositionTable.getMove(entry), this.killers[depth][0], this.killers[depth][1]);
+        final boolean reduceBadCaptures = depth > BAD_CAPTURE_REDUCTION + 1 && !board.isInCheck();
+        for (int move = picker.next(); move != PackedMove.NONE; move = picker.next()) {
+            board.makeMove(move);
+            int currentValue;
+            if (reduceBadCaptures && picker.isLosingCapture()) {
+                currentValue = max(board, depth - 1 - BAD_CAPTURE_REDUCTION, alpha, beta);
+                if (!this.stopped && currentValue < beta) {
+                    currentValue = max(board, depth - 1, alpha, beta);
+                }
+            } else {
+                currentValue = max(board, depth - 1, alpha, beta);
+            }
+            board.unmakeMove();
+            if (this.stopped) {
+                return 0;
+            }
+            if (currentValue < lowestValue) {
+                lowestValue = currentValue;
+                bestMove = move;
+            }
+            beta = Math.min(beta, lowestValue);
+            if (beta <= alpha) {
+                storeKiller(depth, move);
+                break;
+            }
+        }
+        if (bestMove == PackedMove.NONE) {
+            lowestValue = scoreNoLegalMoves(board, depth);
+        }
+        storeEntry(zobristKey, bestMove, depth, lowestValue, alpha, originalBeta);
+        return lowestValue;
+    }
+
+    // ==========================================
+    // Transposition table
+    // ==========================================
+
+    /**
+     * Whether a stored result settles this node: it was searched at least
+     * as deep, exactly as deep for a split worker, and its score is exact
+     * or a bound outside the window.
+     */
+    boolean isUsableEntry(final long entry, final int depth, final int alpha, final int beta) {
+        if (entry == TranspositionTable.MISS || TranspositionTable.getDepth(entry) < depth ||
+                (this.exactDepthOnly && TranspositionTable.getDepth(entry) != depth)) {
+            return false;
+        }
+        final int score = fromTableScore(TranspositionTable.getScore(entry), depth);
+        switch (TranspositionTable.getBound(entry)) {
+            case TranspositionTable.BOUND_EXACT:
+                return true;
+            case TranspositionTable.BOUND_LOWER:
+                return score >= beta;
+            default:
+                return score <= alpha;
+        }
+    }
+
+    /**
+     * A score at or below the window is an upper bound on the true value,
+     * one at or above it a lower bound.
+     */
+    void storeEntry(final long zobristKey, final int bestMove, final int depth,
+                            final int score, final int alpha, final int beta) {
+        final int bound = score <= alpha ? TranspositionTable.BOUND_UPPER
+                : score >= beta ? TranspositionTable.BOUND_LOWER
+                : TranspositionTable.BOUND_EXACT;
+        this.transpositionTable.store(zobristKey, bestMove, depth, bound, toTableScore(score, depth));
+    }
+
+    /**
+     * Mate scores count the depth left when the mate is reached; the table
+     * keeps them relative to the stored node so they stay right wherever
+     * the node is found again.
+     */
+    private static int toTableScore(final int score, final int depth) {
+        if (score >= MATE_THRESHOLD) {
+            return score - depth;
+        }
+        return score <= -MATE_THRESHOLD ? score + depth : score;
+    }
+
+    static int fromTableScore(final int score, final int depth) {
+        if (score >= MATE_THRESHOLD) {
+            return score + depth;
+        }
+        return score <= -MATE_THRESHOLD ? score - depth : score;
+    }
+
+    // ==========================================
+    // Quiescence search
+    // ==========================================
+
+    /**
+     * Searches captures and promotions past the horizon until the position
+     * is quiet, so an exchange is never scored half way through. The side
+     * to move may stand pat on the static score instead of capturing;
+     * captures that lose material by static exchange evaluation are never
+     * tried, and one that could not lift the score to the window even with
+     * the delta margin on top is skipped. In check every evasion is searched,
+     * and no evasion is mate.
+     */
+    private int quiesce(final SearchBoard board, final int ply, int alpha, int beta) {
+        this.nodesSearched++;
+        if (isOutOfTime()) {
+            return 0;
+        }
+        final boolean whiteToMove = board.getSideToMove().isWhite();
+        final boolean inCheck = board.isInCheck();
+        if (ply >= MAX_QUIESCENCE_PLY) {
+            return inCheck && !board.hasLegalMove() ? scoreNoLegalMoves(board, 0) : evaluateBoard(board);
+        }
+
+        int bestValue = whiteToMove ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        int standPat = 0;
+        if (!inCheck) {
+            standPat = evaluateBoard(board);
+            if (whiteToMove ? standPat >= beta : standPat <= alpha) {
+                return standPat;
+            }
+            bestValue = standPat;
+            if (whiteToMove) {
+                alpha = Math.max(alpha, standPat);
+            } else {
+                beta = Math.min(beta, standPat);
+            }
+        }
+
+        final MovePicker picker = this.quiescencePickers[ply];
+        if (inCheck) {
+            picker.init(board, PackedMove.NONE, PackedMove.NONE, PackedMove.NONE);
+        } else {
+            picker.initCaptures(board);
+        }
+        int movesPlayed = 0;
+        for (int move = picker.next(); move != PackedMove.NONE; move = picker.next()) {
+            movesPlayed++;
+            if (!inCheck && (whiteToMove
+                    ? standPat + captureGain(move) + DELTA_MARGIN <= alpha
+                    : standPat - captureGain(move) - DELTA_MARGIN >= beta)) {
+                continue;
+            }
+            board.makeMove(move);
+            final int currentValue = quiesce(board, ply + 1, alpha, beta);
+            board.unmakeMove();
+            if (this.stopped) {
+                return 0;
+            }
+            if (whiteToMove) {
+                bestValue = Math.max(bestValue, currentValue);
+                alpha = Math.max(alpha, bestValue);
+            } else {
+                bestValue = Math.min(bestValue, currentValue);
+                beta = Math.min(beta, bestValue);
+            }
+            if (beta <= alpha) {
+                break;
+            }
+        }
+        return inCheck && movesPlayed == 0 ? scoreNoLegalMoves(board, 0) : bestValue;
+    }
+
+    /**
+     * Material a capture or promotion wins if nothing is taken back.
+     */
+    private static int captureGain(final int move) {
+        int gain = PackedMove.isCapture(move)
+                ? PIECE_VALUES[PackedMove.getCapturedPiece(move) % BitBoard.NUM_PIECE_TYPES]
+                : 0;
+        if (PackedMove.isPromotion(move)) {
+            gain += PIECE_VALUES[PackedMove.getPromotion(move)] - PIECE_VALUES[0];
+        }
+        return gain;
+    }
+
+    /**
+     * Remembers a quiet move that caused a cutoff, to be tried early in
+     * sibling nodes at the same depth.
+     */
+    private void storeKiller(final int depth, final int move) {
+        if (PackedMove.isCapture(move) || PackedMove.isPromotion(move) || this.killers[depth][0] == move) {
+            return;
+        }
+        this.killers[depth][1] = this.killers[depth][0];
+        this.killers[depth][0] = move;
+    }
+
+    /**
+     * Checkmate scores favour the quicker mate; stalemate is a draw.
+     */
+    static int scoreNoLegalMoves(final SearchBoard board, final int depth) {
+        if (!board.isInCheck()) {
+            return 0;
+        }
+        return board.getSideToMove().isWhite() ? -(CHECKMATE_SCORE + depth) : CHECKMATE_SCORE + depth;
+    }
+
+    private static int evaluateBoard(final SearchBoard board) {
+        return scorePlayer(board, Alliance.WHITE) - scorePlayer(board, Alliance.BLACK);
+    }
+
+    private static int scorePlayer(final SearchBoard board, final Alliance alliance) {
+        final BitBoard bitBoard = board.getBitBoard();
+        int score = 0;
+
+        // Base material score
+        for (final Piece.PieceType pieceType : Piece.PieceType.values()) {
+            score += BitBoard.bitCount(bitBoard.getPieces(alliance, pieceType)) * getPieceValue(pieceType);
+        }
+
+        // Mobility
+        score += calculateMobility(bitBoard, alliance) * 5;
+
+        // Check penalty (only the side to move can be in check)
+        if (alliance == board.getSideToMove() && board.isInCheck()) score -= 50;
+
+        return score;
+    }
+
+    /**
+     * Pseudo-legal move count from the attack tables: pawn pushes and
+     * captures plus every piece's attacks on tiles not held by its own side.
+     */
+    private static int calculateMobility(final BitBoard bitBoard, final Alliance alliance) {
+        final long own = bitBoard.getAlliancePieces(alliance);
+        final long enemy = bitBoard.getAlliancePieces(alliance.getOpponent());
+        final long occupied = bitBoard.getOccupied();
+        final long pawns = bitBoard.getPieces(alliance, Piece.PieceType.PAWN);
+        int mobility = BitBoard.bitCount((alliance.isWhite() ? pawns >>> 8 : pawns << 8) & ~occupied);
+        for (long pieces = pawns; pieces != 0; pieces &= pieces - 1) {
+            mobility += BitBoard.bitCount(LeaperAttacks.pawnAttacks(alliance, BitBoard.lowestCoordinate(pieces)) & enemy);
+        }
+        for (long pieces = bitBoard.getPieces(alliance, Piece.PieceType.KNIGHT); pieces != 0; pieces &= pieces - 1) {
+            mobility += BitBoard.bitCount(LeaperAttacks.knightAttacks(BitBoard.lowestCoordinate(pieces)) & ~own);
+        }
+        for (long pieces = bitBoard.getPieces(alliance, Piece.PieceType.BISHOP); pieces != 0; pieces &= pieces - 1) {
+            mobility += BitBoard.bitCount(MagicBitBoards.bishopAttacks(BitBoard.lowestCoordinate(pieces), occupied) & ~own);
+        }
+        for (long pieces = bitBoard.getPieces(alliance, Piece.PieceType.ROOK); pieces != 0; pieces &= pieces - 1) {
+            mobility += BitBoard.bitCount(MagicBitBoards.rookAttacks(BitBoard.lowestCoordinate(pieces), occupied) & ~own);
+        }
+        for (long pieces = bitBoard.getPieces(alliance, Piece.PieceType.QUEEN); pieces != 0; pieces &= pieces - 1) {
+            mobility += BitBoard.bitCount(MagicBitBoards.queenAttacks(BitBoard.lowestCoordinate(pieces), occupied) & ~own);
+        }
+        final int kingCoordinate = bitBoard.getKingCoordinate(alliance);
+        if (kingCoordinate >= 0) {
+            mobility += BitBoard.bitCount(LeaperAttacks.kingAttacks(kingCoordinate) & ~own);
+        }
+        return mobility;
+    }
+
+    private static int getPieceValue(final Piece.PieceType pieceType) {
+        return PIECE_VALUES[pieceType.ordinal()];
+    }
+}
@@ -0,0 +1,261 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.BitBoard;
+import com.chess.engine.board.MoveList;
+import com.chess.engine.board.PackedMove;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.board.StaticExchange;
+
+import java.util.Arrays;
+
+/**
+ * Hands out a node's moves one at a time in stages, generating each stage
+ * only when the previous one is used up:
+ *
+ * <ol>
+ *   <li>the hash move, if it is legal here;</li>
+ *   <li>captures and promotions that do not lose material by static exchange
+ *       evaluation, most valuable victim first;</li>
+ *   <li>the killer moves, quiet moves that caused a cutoff at this depth before;</li>
+ *   <li>the remaining quiet moves;</li>
+ *   <li>losing captures, which the search may reduce.</li>
+ * </ol>
+ *
+ * A cutoff on an early move means the quiet moves are never generated.
+ * One picker is kept per depth and reinitialised for every node.
+ */
+final class MovePicker {
+
+    private static final int STAGE_HASH_MOVE = 0;
+    private static final int STAGE_GENERATE_CAPTURES = 1;
+    private static final int STAGE_WINNING_CAPTURES = 2;
+    private static final int STAGE_KILLERS = 3;
+    private static final int STAGE_GENERATE_QUIETS = 4;
+    private static final int STAGE_QUIETS = 5;
+    private static final int STAGE_LOSING_CAPTURES = 6;
+    private static final int STAGE_DONE = 7;
+
+    // Captures scored at least this much gain no less material than they risk
+    private static final int WINNING_CAPTURE = 1 << 20;
+
+    private final MoveList captures = new MoveList();
+    private final MoveList quiets = new MoveList();
+    private int[] captureScores = new int[MoveList.DEFAULT_CAPACITY];
+    private final int[] exchangeGains = new int[StaticExchange.MAX_EXCHANGE];
+
+    private SearchBoard board;
+    private int hashMove;
+    private int firstKiller;
+    private int secondKiller;
+    private boolean capturesOnly;
+    private int stage;
+    private int index;
+    private int killerIndex;
+    private int quietIndex;
+
+    /**
+     * Prepares to hand out every legal move of the position.
+     */
+    void init(final SearchBoard board, final int hashMove, final int firstKiller, final int secondKiller) {
+        this.board = board;
+        this.hashMove = hashMove;
+        this.firstKiller = firstKiller;
+        this.secondKiller = secondKiller;
+        this.capturesOnly = false;
+        this.killerIndex = 0;
+        this.stage = STAGE_HASH_MOVE;
+    }
+
+    /**
+     * Prepares to hand out only the captures and promotions that do not
+     * lose material, best first: the moves a quiescence search looks at.
+     */
+    void initCaptures(final SearchBoard board) {
+        this.board = board;
+        this.hashMove = PackedMove.NONE;
+        this.firstKiller = PackedMove.NONE;
+        this.secondKiller = PackedMove.NONE;
+        this.capturesOnly = true;
+        this.stage = STAGE_GENERATE_CAPTURES;
+    }
+
+    /**
+     * The next move to try, or PackedMove.NONE when there are no more.
+     * Each stage falls through into the next once it is used up.
+     */
+    @SuppressWarnings("fallthrough")
+    int next() {
+        switch (this.stage) {
+            case STAGE_HASH_MOVE:
+                this.stage = STAGE_GENERATE_CAPTURES;
+                if (this.board.isLegalMove(this.hashMove)) {
+                    return this.hashMove;
+                }
+                // fall through
+            case STAGE_GENERATE_CAPTURES:
+                this.captures.clear();
+                this.board.generateCaptures(this.captures);
+                scoreCaptures();
+                this.index = 0;
+                this.stage = STAGE_WINNING_CAPTURES;
+                // fall through
+            case STAGE_WINNING_CAPTURES:
+                while (this.index < this.captures.size()) {
+                    selectBestCapture();
+                    if (this.captureScores[this.index] < WINNING_CAPTURE) {
+                        break;
+                    }
+                    final int move = this.captures.get(this.index++);
+                    if (move != this.hashMove) {
+                        return move;
+                    }
+                }
+                if (this.capturesOnly) {
+                    this.stage = STAGE_DONE;
+                    return PackedMove.NONE;
+                }
+                this.stage = STAGE_KILLERS;
+                // fall through
+            case STAGE_KILLERS:
+                while (this.killerIndex < 2) {
+                    final int killer = this.killerIndex++ == 0 ? this.firstKiller : this.secondKiller;
+                    if (killer != PackedMove.NONE && killer != this.hashMove && this.board.isLegalMove(killer)) {
+                        return killer;
+                    }
+                }
+                this.stage = STAGE_GENERATE_QUIETS;
+                // fall through
+            case STAGE_GENERATE_QUIETS:
+                this.quiets.clear();
+                this.board.generateQuiets(this.quiets);
+                this.quietIndex = 0;
+                this.stage = STAGE_QUIETS;
+                // fall through
+            case STAGE_QUIETS:
+                // Killers are quiet, so a legal one has already been handed out
+                while (this.quietIndex < this.quiets.size()) {
+                    final int move = this.quiets.get(this.quietIndex++);
+                    if (move != this.hashMove && move != this.firstKiller && move != this.secondKiller) {
+                        return move;
+                    }
+                }
+                this.stage = STAGE_LOSING_CAPTURES;
+                // fall through
+            case STAGE_LOSING_CAPTURES:
+                while (this.index < this.captures.size()) {
+                    selectBestCapture();
+                    final int move = this.captures.get(this.index++);
+                    if (move != this.hashMove) {
+                        return move;
+                    }
+                }
+                this.stage = STAGE_DONE;
+                // fall through
+            default:
+                return PackedMove.NONE;
+        }
+    }
+
+    /**
+     * Checks the stages against full move generation on the position, with
+     * the last legal move as hash move and the first quiet one as killer:
+     * every legal move is handed out exactly once, the hash move first,
+     * moves flagged as losing captures lose material by static exchange
+     * evaluation, and the capture picker only hands out legal captures and
+     * promotions.
+     *
+     * @return true if every check passed
+     */
+    static boolean selfCheck(final SearchBoard board) {
+        final MoveList legalMoves = new MoveList();
+        board.generateMoves(legalMoves);
+        final MoveList quietMoves = new MoveList();
+        board.generateQuiets(quietMoves);
+        final int hashMove = legalMoves.isEmpty() ? PackedMove.NONE : legalMoves.get(legalMoves.size() - 1);
+        final int killer = quietMoves.isEmpty() ? PackedMove.NONE : quietMoves.get(0);
+        final int[] expected = legalMoves.toArray();
+        Arrays.sort(expected);
+
+        final MovePicker picker = new MovePicker();
+        picker.init(board, hashMove, killer, PackedMove.NONE);
+        final MoveList picked = new MoveList();
+        for (int move = picker.next(); move != PackedMove.NONE; move = picker.next()) {
+            if (picked.isEmpty() && move != hashMove) {
+                return false;
+            }
+            if (picker.isLosingCapture() && StaticExchange.see(board, move, MiniMaxAI.PIECE_VALUES, picker.exchangeGains) >= 0) {
+                return false;
+            }
+            picked.add(move);
+        }
+        final int[] actual = picked.toArray();
+        Arrays.sort(actual);
+        if (!Arrays.equals(expected, actual)) {
+            return false;
+        }
+
+        picker.initCaptures(board);
+        for (int move = picker.next(); move != PackedMove.NONE; move = picker.next()) {
+            if (!PackedMove.isCapture(move) && !PackedMove.isPromotion(move) ||
+                    Arrays.binarySearch(expected, move) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether the move last handed out is a capture that loses material.
+     */
+    boolean isLosingCapture() {
+        return this.stage == STAGE_LOSING_CAPTURES;
+    }
+
+    /**
+     * Most valuable victim first, least valuable attacker second. A
+     * promotion counts its gain as part of the victim. A capture of a piece
+     * worth at least the attacker cannot lose material, so only the others
+     * need a static exchange evaluation, which uses the search's piece
+     * values so it agrees with the evaluation.
+     */
+    private void scoreCaptures() {
+        if (this.captureScores.length < this.captures.size()) {
+            this.captureScores = new int[this.captures.size()];
+        }
+        for (int i = 0; i < this.captures.size(); i++) {
+            final int move = this.captures.get(i);
+            final int attacker = PackedMove.getMovedPiece(move) % BitBoard.NUM_PIECE_TYPES;
+            int gain = PackedMove.isCapture(move) ? pieceValue(PackedMove.getCapturedPiece(move)) : 0;
+            if (PackedMove.isPromotion(move)) {
+                gain += MiniMaxAI.PIECE_VALUES[PackedMove.getPromotion(move)] - MiniMaxAI.PIECE_VALUES[0];
+            }
+            // The king can only capture undefended pieces, so its captures never lose material
+            final int risk = attacker == MiniMaxAI.KING_INDEX ? 0 : MiniMaxAI.PIECE_VALUES[attacker];
+            final boolean winning = gain >= risk ||
+                    StaticExchange.see(this.board, move, MiniMaxAI.PIECE_VALUES, this.exchangeGains) >= 0;
+            this.captureScores[i] = (winning ? WINNING_CAPTURE : 0) + gain * 8 - attacker;
+        }
+    }
+
+    /**
+     * Selection sort step: swaps the best remaining capture to index.
+     */
+    private void selectBestCapture() {
+        int best = this.index;
+        for (int i = this.index + 1; i < this.captures.size(); i++) {
+            if (this.captureScores[i] > this.captureScores[best]) {
+                best = i;
+            }
+        }
+        if (best != this.index) {
+            this.captures.swap(best, this.index);
+            final int score = this.captureScores[best];
+            this.captureScores[best] = this.captureScores[this.index];
+            this.captureScores[this.index] = score;
+        }
+    }
+
+    private static int pieceValue(final int pieceIndex) {
+        return MiniMaxAI.PIECE_VALUES[pieceIndex % BitBoard.NUM_PIECE_TYPES];
+    }
+}
@@ -0,0 +1,72 @@
+package com.chess.engine.player.ai;
+
+/**
+ * How long MiniMaxAI may think about a move: a fixed depth, a fixed time
+ * per move, or a share of the remaining clock plus increment. Timed
+ * searches deepen one ply at a time and stop when the budget runs out.
+ */
+public final class SearchLimits {
+
+    public static final int MAX_SEARCH_DEPTH = 64;
+    public static final long NO_TIME_LIMIT = Long.MAX_VALUE;
+
+    // Moves the remaining clock is assumed to be spread over
+    private static final int EXPECTED_MOVES_TO_GO = 30;
+    // Kept in hand for the time it takes to return and play the move
+    private static final long CLOCK_SAFETY_MARGIN_MILLIS = 50;
+
+    private final int maxDepth;
+    private final long timeBudgetMillis;
+
+    private SearchLimits(final int maxDepth, final long timeBudgetMillis) {
+        if (maxDepth < 1 || maxDepth > MAX_SEARCH_DEPTH) {
+            throw new IllegalArgumentException("Search depth out of range: " + maxDepth);
+        }
+        if (timeBudgetMillis < 1) {
+            throw new IllegalArgumentException("Time budget must be positive: " + timeBudgetMillis + " ms");
+        }
+        this.maxDepth = maxDepth;
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+
+    /**
+     * Search every move to exactly this depth, however long it takes.
+     */
+    public static SearchLimits depth(final int depth) {
+        return new SearchLimits(depth, NO_TIME_LIMIT);
+    }
+
+    /**
+     * Search as deep as the time allows.
+     */
+    public static SearchLimits moveTime(final long millis) {
+        return new SearchLimits(MAX_SEARCH_DEPTH, millis);
+    }
+
+    /**
+     * Budget one move out of the remaining clock: an even share of it
+     * plus most of the increment, never more than the clock holds.
+     */
+    public static SearchLimits clock(final long remainingMillis, final long incrementMillis) {
+        final long share = remainingMillis / EXPECTED_MOVES_TO_GO + incrementMillis * 3 / 4;
+        final long available = remainingMillis - CLOCK_SAFETY_MARGIN_MILLIS;
+        return moveTime(Math.max(1, Math.min(share, available)));
+    }
+
+    public int getMaxDepth() {
+        return this.maxDepth;
+    }
+
+    public long getTimeBudgetMillis() {
+        return this.timeBudgetMillis;
+    }
+
+    public boolean isTimed() {
+        return this.timeBudgetMillis != NO_TIME_LIMIT;
+    }
+
+    @Override
+    public String toString() {
+        return isTimed() ? this.timeBudgetMillis + " ms" : "depth " + this.maxDepth;
+    }
+}
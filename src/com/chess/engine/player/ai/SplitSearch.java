@@ -0,0 +1,386 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+import com.chess.engine.board.MoveList;
+import com.chess.engine.board.PackedMove;
+import com.chess.engine.board.SearchBoard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Young Brothers Wait split-point search on a ForkJoinPool, for one
+ * MiniMaxAI.execute call. At the root and at the nodes just below it the
+ * eldest child, the hash move or the previous best, is searched first on
+ * its own; only then are its younger brothers forked as tasks, with the
+ * window it produced. Each split node keeps its window in atomics that
+ * finished children narrow, so brothers that start later search a
+ * narrower window, and running ones give up once it closes.
+ *
+ * Deeper nodes are searched serially by one MiniMaxAI worker per pool
+ * thread. The workers use only table entries of exactly the depth they
+ * need, and root ties go to the earlier move. Results still vary from run
+ * to run: a brother reads its window when it starts, so the window, and
+ * with it what is cut off below, depends on which of its elder brothers
+ * have finished. Runs at the same depth may choose different moves of
+ * close value.
+ *
+ * Split nodes reduce losing captures as max and min do, re-searching them
+ * at full depth when they beat the window they started with. They do not
+ * order by killer moves, which belong to one worker's thread, so their
+ * move order can differ from a serial search's.
+ */
+final class SplitSearch {
+
+    // Nodes with less depth left are not worth a task of their own
+    private static final int MIN_SPLIT_DEPTH = 3;
+    // Split at the root and at the nodes one ply below it
+    private static final int MAX_SPLIT_PLY = 2;
+    private static final int ABORTED = Integer.MIN_VALUE;
+    private static final long NO_BEST = Long.MIN_VALUE;
+
+    private final MiniMaxAI main;
+    private final Board rootBoard;
+    private final SearchLimits limits;
+    private final TranspositionTable transpositionTable;
+    private final ForkJoinPool pool;
+    private final long start;
+    private final long deadline;
+    private final AtomicBoolean stopped = new AtomicBoolean();
+    private final Queue<MiniMaxAI> allWorkers = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<MiniMaxAI> workers;
+    private final LongAdder splitNodes = new LongAdder();
+    private int rootValue;
+
+    SplitSearch(final MiniMaxAI main, final Board rootBoard, final SearchLimits limits,
+                final TranspositionTable transpositionTable, final ForkJoinPool pool, final long start) {
+        this.main = main;
+        this.rootBoard = rootBoard;
+        this.limits = limits;
+        this.transpositionTable = transpositionTable;
+        this.pool = pool;
+        this.start = start;
+        this.deadline = limits.isTimed() ? start + limits.getTimeBudgetMillis() * 1_000_000 : Long.MAX_VALUE;
+        this.workers = ThreadLocal.withInitial(this::createWorker);
+    }
+
+    private MiniMaxAI createWorker() {
+        final MiniMaxAI worker = new MiniMaxAI(this.limits, this.transpositionTable);
+        worker.prepareWorker(this.start);
+        this.allWorkers.add(worker);
+        return worker;
+    }
+
+    /**
+     * Nodes searched so far by the split nodes and every worker.
+     */
+    long getNodesSearched() {
+        long nodes = this.splitNodes.sum();
+        for (final MiniMaxAI worker : this.allWorkers) {
+            nodes += worker.getNodesSearched();
+        }
+        return nodes;
+    }
+
+    int getRootValue() {
+        return this.rootValue;
+    }
+
+    /**
+     * Whether the search has been stopped by the clock. As in a serial
+     * search, the first iteration is never stopped.
+     */
+    boolean isStopped() {
+        if (!this.stopped.get() && this.limits.isTimed() && this.main.getCompletedDepth() > 0 &&
+                System.nanoTime() - this.deadline >= 0) {
+            this.stopped.set(true);
+        }
+        return this.stopped.get();
+    }
+
+    /**
+     * Searches every root move to the depth and returns the index of the
+     * best, ties going to the earlier move, or -1 when stopped or there is
+     * none. Leaves the score in getRootValue.
+     */
+    int searchRoot(final MoveList rootMoves, final Move[] boardMoves, final int depth) {
+        final boolean whiteToMove = this.rootBoard.currentPlayer().getAlliance().isWhite();
+        // Score for the side to move in the high half, index in the low half
+        final AtomicLong best = new AtomicLong(NO_BEST);
+        final List<RootMoveTask> tasks = new ArrayList<>();
+        for (int i = 0; i < rootMoves.size(); i++) {
+            if (boardMoves[i] != Move.NULL_MOVE) {
+                tasks.add(new RootMoveTask(best, rootMoves.get(i), i, whiteToMove, depth));
+            }
+        }
+        if (tasks.isEmpty()) {
+            return -1;
+        }
+        this.pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                tasks.get(0).invoke();
+                ForkJoinTask.invokeAll(tasks.subList(1, tasks.size()));
+            }
+        });
+        final long result = best.get();
+        if (isStopped() || result == NO_BEST) {
+            return -1;
+        }
+        final int score = (int) (result >> 32);
+        this.rootValue = whiteToMove ? score : -score;
+        return (int) result;
+    }
+
+    private static long packBest(final int score, final int index) {
+        return ((long) score << 32) | index;
+    }
+
+    /**
+     * The side to move's score for a root move must beat the best so far,
+     * or equal it when the move comes earlier; anything else is only a bound.
+     */
+    @SuppressWarnings("serial")
+    private final class RootMoveTask extends RecursiveAction {
+
+        private final AtomicLong best;
+        private final int move;
+        private final int index;
+        private final boolean whiteToMove;
+        private final int depth;
+
+        RootMoveTask(final AtomicLong best, final int move, final int index, final boolean whiteToMove,
+                     final int depth) {
+            this.best = best;
+            this.move = move;
+            this.index = index;
+            this.whiteToMove = whiteToMove;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            final long current = this.best.get();
+            // Scores at or below the threshold are not good enough to become the best
+            final int threshold;
+            int alpha = Integer.MIN_VALUE;
+            int beta = Integer.MAX_VALUE;
+            if (current == NO_BEST) {
+                threshold = Integer.MIN_VALUE;
+            } else {
+                final int bestScore = (int) (current >> 32);
+                threshold = (int) current > this.index ? bestScore - 1 : bestScore;
+                if (this.whiteToMove) {
+                    alpha = threshold;
+                } else {
+                    beta = -threshold;
+                }
+            }
+            final int value = new NodeTask(null, new int[] {this.move}, this.depth - 1, 0, alpha, beta).invoke();
+            if (value == ABORTED) {
+                return;
+            }
+            final int score = this.whiteToMove ? value : -value;
+            if (score <= threshold) {
+                return;
+            }
+            final long candidate = packBest(score, this.index);
+            for (long previous = this.best.get(); isBetter(candidate, previous); previous = this.best.get()) {
+                if (this.best.compareAndSet(previous, candidate)) {
+                    return;
+                }
+            }
+        }
+
+        private boolean isBetter(final long candidate, final long previous) {
+            if (previous == NO_BEST) {
+                return true;
+            }
+            final int candidateScore = (int) (candidate >> 32);
+            final int previousScore = (int) (previous >> 32);
+            return candidateScore > previousScore ||
+                    (candidateScore == previousScore && (int) candidate < (int) previous);
+        }
+    }
+
+    /**
+     * One node below the root, reached by the moves in path. Its window is
+     * given for children of the root and read from the parent's atomics
+     * when the task starts for the others. A losing capture is searched
+     * reduced first, and again to its full depth only if it beats that window.
+     */
+    @SuppressWarnings("serial")
+    private final class NodeTask extends RecursiveTask<Integer> {
+
+        private final NodeTask parent;
+        private final int[] path;
+        private final int depth;
+        private final int reduction;
+        private int alpha;
+        private int beta;
+        // This node's window once it splits, narrowed by children as they finish
+        private AtomicInteger sharedAlpha;
+        private AtomicInteger sharedBeta;
+        private boolean maximizing;
+
+        NodeTask(final NodeTask parent, final int[] path, final int depth, final int reduction,
+                 final int alpha, final int beta) {
+            this.parent = parent;
+            this.path = path;
+            this.depth = depth;
+            this.reduction = reduction;
+            this.alpha = alpha;
+            this.beta = beta;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (this.parent != null) {
+                this.alpha = this.parent.sharedAlpha.get();
+                this.beta = this.parent.sharedBeta.get();
+            }
+            if (isCutOff()) {
+                return ABORTED;
+            }
+            int value = search(this.depth - this.reduction);
+            if (this.reduction > 0 && value != ABORTED &&
+                    (this.parent.maximizing ? value > this.alpha : value < this.beta)) {
+                value = search(this.depth);
+            }
+            if (value != ABORTED && this.parent != null) {
+                this.parent.narrowWindow(value);
+            }
+            return value;
+        }
+
+        /**
+         * Whether the clock ran out or a split node above has been cut off,
+         * making this node's result useless.
+         */
+        private boolean isCutOff() {
+            if (isStopped()) {
+                return true;
+            }
+            for (NodeTask node = this.parent; node != null; node = node.parent) {
+                if (node.sharedAlpha.get() >= node.sharedBeta.get()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void narrowWindow(final int childValue) {
+            if (this.maximizing) {
+                this.sharedAlpha.accumulateAndGet(childValue, Math::max);
+            } else {
+                this.sharedBeta.accumulateAndGet(childValue, Math::min);
+            }
+        }
+
+        private int search(final int depth) {
+            return depth >= MIN_SPLIT_DEPTH && this.path.length < MAX_SPLIT_PLY
+                    ? searchSplit(depth)
+                    : searchSerially(depth);
+        }
+
+        private int searchSerially(final int depth) {
+            final MiniMaxAI worker = SplitSearch.this.workers.get();
+            final int value = worker.searchNode(positionAt(this.path), depth, this.alpha, this.beta, this::isCutOff);
+            return worker.isStopped() ? ABORTED : value;
+        }
+
+        private int searchSplit(final int depth) {
+            SplitSearch.this.splitNodes.increment();
+            final MiniMaxAI worker = SplitSearch.this.workers.get();
+            final SearchBoard board = positionAt(this.path);
+            final long zobristKey = board.getZobristKey();
+            final long entry = SplitSearch.this.transpositionTable.probe(zobristKey);
+            if (worker.isUsableEntry(entry, depth, this.alpha, this.beta)) {
+                return MiniMaxAI.fromTableScore(TranspositionTable.getScore(entry), depth);
+            }
+
+            final MoveList moves = new MoveList();
+            // Set bits mark the moves, by index, that the reduction applies to
+            final BitSet reduced = new BitSet();
+            final boolean reduceBadCaptures = depth > MiniMaxAI.BAD_CAPTURE_REDUCTION + 1 && !board.isInCheck();
+            final MovePicker picker = new MovePicker();
+            picker.init(board, TranspositionTable.getMove(entry), PackedMove.NONE, PackedMove.NONE);
+            for (int move = picker.next(); move != PackedMove.NONE; move = picker.next()) {
+                reduced.set(moves.size(), reduceBadCaptures && picker.isLosingCapture());
+                moves.add(move);
+            }
+            if (moves.size() == 0) {
+                final int value = MiniMaxAI.scoreNoLegalMoves(board, depth);
+                worker.storeEntry(zobristKey, PackedMove.NONE, depth, value, this.alpha, this.beta);
+                return value;
+            }
+
+            this.maximizing = board.getSideToMove().isWhite();
+            this.sharedAlpha = new AtomicInteger(this.alpha);
+            this.sharedBeta = new AtomicInteger(this.beta);
+            final List<NodeTask> children = new ArrayList<>(moves.size());
+            for (int i = 0; i < moves.size(); i++) {
+                final int[] childPath = Arrays.copyOf(this.path, this.path.length + 1);
+                childPath[this.path.length] = moves.get(i);
+                children.add(new NodeTask(this, childPath, depth - 1,
+                        reduced.get(i) ? MiniMaxAI.BAD_CAPTURE_REDUCTION : 0, 0, 0));
+            }
+
+            // The eldest brother alone first, then the rest with the window it left
+            final NodeTask eldest = children.get(0);
+            if (eldest.invoke() == ABORTED) {
+                return ABORTED;
+            }
+            if (this.sharedAlpha.get() < this.sharedBeta.get()) {
+                ForkJoinTask.invokeAll(children.subList(1, children.size()));
+            }
+
+            final boolean cutOff = this.sharedAlpha.get() >= this.sharedBeta.get();
+            int bestValue = eldest.join();
+            int bestMove = moves.get(0);
+            for (int i = 1; i < children.size(); i++) {
+                final NodeTask child = children.get(i);
+                if (!child.isDone()) {
+                    continue;
+                }
+                final int value = child.join();
+                if (value == ABORTED) {
+                    if (cutOff) {
+                        continue;
+                    }
+                    return ABORTED;
+                }
+                if (this.maximizing ? value > bestValue : value < bestValue) {
+                    bestValue = value;
+                    bestMove = moves.get(i);
+                }
+            }
+            if (isCutOff()) {
+                return ABORTED;
+            }
+            worker.storeEntry(zobristKey, bestMove, depth, bestValue, this.alpha, this.beta);
+            return bestValue;
+        }
+    }
+
+    private SearchBoard positionAt(final int[] path) {
+        final SearchBoard board = new SearchBoard(this.rootBoard);
+        for (final int move : path) {
+            board.makeMove(move);
+        }
+        return board;
+    }
+}
@@ -0,0 +1,232 @@
+package com.chess.engine.player.ai;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Search results keyed by Zobrist key, so a position reached again by a
+ * different move order is not searched twice. Entries are two longs, the
+ * packed data and the key xor the data, in a power-of-two sized table that
+ * any number of search threads may share without locks: an entry torn by
+ * two threads writing at once no longer decodes to its key and reads as a
+ * miss.
+ *
+ * Slots come in pairs. The first keeps the deepest result, unless it is
+ * left over from an earlier search; the second always takes the newest.
+ *
+ * <pre>
+ *  bits  0-24  best move (see PackedMove), or 0
+ *  bits 25-26  bound: exact, lower or upper
+ *  bits 27-33  remaining depth
+ *  bits 34-39  search generation
+ *  bits 40-63  score, signed
+ * </pre>
+ */
+public final class TranspositionTable {
+
+    public static final int BOUND_EXACT = 1;
+    public static final int BOUND_LOWER = 2;
+    public static final int BOUND_UPPER = 3;
+
+    public static final long MISS = 0L;
+
+    private static final int BYTES_PER_SLOT = 16;
+    private static final int MOVE_MASK = (1 << 25) - 1;
+    private static final int GENERATION_MASK = 0x3F;
+    private static final int USAGE_SAMPLE = 1000;
+    // A mate score as the search stores it, for selfCheck
+    private static final int SAMPLE_MATE_SCORE = 100_031;
+
+    private final long[] checks;
+    private final long[] entries;
+    private final int mask;
+    private volatile int generation;
+
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+
+    /**
+     * @param sizeMb memory to use, rounded down to a power-of-two number of slots
+     */
+    public TranspositionTable(final int sizeMb) {
+        if (sizeMb < 1 || sizeMb > 16384) {
+            throw new IllegalArgumentException("Hash size out of range: " + sizeMb + " MB");
+        }
+        final long slots = Long.highestOneBit((long) sizeMb * 1024 * 1024 / BYTES_PER_SLOT);
+        final int size = (int) Math.min(slots, 1 << 30);
+        this.checks = new long[size];
+        this.entries = new long[size];
+        this.mask = size - 2;
+    }
+
+    /**
+     * Starts a new search: entries stored by earlier searches become the
+     * first to be replaced.
+     */
+    public void newSearch() {
+        this.generation = (this.generation + 1) & GENERATION_MASK;
+    }
+
+    /**
+     * The stored entry for the position, or MISS. Read it with the static
+     * getters.
+     */
+    public long probe(final long zobristKey) {
+        this.probes.increment();
+        final int slot = (int) zobristKey & this.mask;
+        for (int i = slot; i < slot + 2; i++) {
+            final long entry = this.entries[i];
+            if (entry != MISS && (this.checks[i] ^ entry) == zobristKey) {
+                this.hits.increment();
+                return entry;
+            }
+        }
+        return MISS;
+    }
+
+    public void store(final long zobristKey, final int move, final int depth, final int bound, final int score) {
+        this.stores.increment();
+        final int slot = (int) zobristKey & this.mask;
+        final long deepest = this.entries[slot];
+        final boolean sameKey = deepest != MISS && (this.checks[slot] ^ deepest) == zobristKey;
+        final int target = deepest == MISS || sameKey || depth >= getDepth(deepest) ||
+                getGeneration(deepest) != this.generation ? slot : slot + 1;
+        final long entry = (move & MOVE_MASK) |
+                ((long) bound << 25) |
+                ((long) depth << 27) |
+                ((long) this.generation << 34) |
+                ((long) score << 40);
+        this.entries[target] = entry;
+        this.checks[target] = zobristKey ^ entry;
+    }
+
+    public static int getMove(final long entry) {
+        return (int) entry & MOVE_MASK;
+    }
+
+    public static int getBound(final long entry) {
+        return (int) (entry >>> 25) & 0x3;
+    }
+
+    public static int getDepth(final long entry) {
+        return (int) (entry >>> 27) & 0x7F;
+    }
+
+    public static int getScore(final long entry) {
+        return (int) (entry >> 40);
+    }
+
+    private static int getGeneration(final long entry) {
+        return (int) (entry >>> 34) & GENERATION_MASK;
+    }
+
+    /**
+     * Stores entries in a small table and reads them back: every field
+     * survives the packing, including negative scores and depth 0, a key
+     * sharing the slot misses, and after the generation wraps the older
+     * entries are the ones replaced.
+     *
+     * @return true if every check passed
+     */
+    public static boolean selfCheck() {
+        final TranspositionTable table = new TranspositionTable(1);
+        final long key = 0x9E3779B97F4A7C15L;
+        // Differs only above the slot bits, so it lands on the same pair of slots
+        final long sameSlotKey = key ^ (1L << 48);
+        final int move = MOVE_MASK;
+
+        table.store(key, move, 0, BOUND_UPPER, -SAMPLE_MATE_SCORE);
+        if (!hasEntry(table, key, move, 0, BOUND_UPPER, -SAMPLE_MATE_SCORE) || table.probe(sameSlotKey) != MISS) {
+            return false;
+        }
+        table.store(key, 0, 127, BOUND_LOWER, -1);
+        if (!hasEntry(table, key, 0, 127, BOUND_LOWER, -1)) {
+            return false;
+        }
+
+        // A shallower result of the same search goes beside the deeper one
+        table.store(sameSlotKey, move, 3, BOUND_EXACT, SAMPLE_MATE_SCORE);
+        if (!hasEntry(table, key, 0, 127, BOUND_LOWER, -1) ||
+                !hasEntry(table, sameSlotKey, move, 3, BOUND_EXACT, SAMPLE_MATE_SCORE)) {
+            return false;
+        }
+
+        // Wrap the generation round to the one just before the current
+        for (int i = 0; i < GENERATION_MASK; i++) {
+            table.newSearch();
+        }
+        table.store(key, move, 20, BOUND_EXACT, 42);
+        table.newSearch();
+        if (table.generation != 0 || !hasEntry(table, key, move, 20, BOUND_EXACT, 42)) {
+            return false;
+        }
+        // The deep entry is left over from the search before the wrap, so a shallow one replaces it
+        table.store(sameSlotKey, move, 1, BOUND_UPPER, -7);
+        return table.probe(key) == MISS && hasEntry(table, sameSlotKey, move, 1, BOUND_UPPER, -7);
+    }
+
+    private static boolean hasEntry(final TranspositionTable table, final long zobristKey, final int move,
+                                    final int depth, final int bound, final int score) {
+        final long entry = table.probe(zobristKey);
+        return entry != MISS && getMove(entry) == move && getDepth(entry) == depth &&
+                getBound(entry) == bound && getScore(entry) == score;
+    }
+
+    // ==========================================
+    // Statistics
+    // ==========================================
+
+    public long getProbes() {
+        return this.probes.sum();
+    }
+
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    public long getStores() {
+        return this.stores.sum();
+    }
+
+    /**
+     * Fraction of probes that found their position, 0 to 1.
+     */
+    public double getHitRate() {
+        final long probeCount = getProbes();
+        return probeCount == 0 ? 0.0 : (double) getHits() / probeCount;
+    }
+
+    /**
+     * Per mille of sampled slots holding an entry from the current search.
+     */
+    public int getUsagePermille() {
+        final int sample = Math.min(USAGE_SAMPLE, this.entries.length);
+        int used = 0;
+        for (int i = 0; i < sample; i++) {
+            if (this.entries[i] != MISS && getGeneration(this.entries[i]) == this.generation) {
+                used++;
+            }
+        }
+        return used * 1000 / sample;
+    }
+
+    public int getSizeMb() {
+        return (int) ((long) this.entries.length * BYTES_PER_SLOT / (1024 * 1024));
+    }
+
+    public void resetStatistics() {
+        this.probes.reset();
+        this.hits.reset();
+        this.stores.reset();
+    }
+
+    /**
+     * Forgets every entry and resets the statistics.
+     */
+    public void clear() {
+        Arrays.fill(this.entries, MISS);
+        Arrays.fill(this.checks, 0L);
+        resetStatistics();
+    }
+}
@@ -1,11 +1,13 @@
 package com.chess.gui;
 
 import com.chess.engine.board.Board;
+import com.chess.engine.board.GameState;
 import com.chess.engine.board.Move;
 import com.chess.engine.board.Tile;
 import com.chess.engine.pieces.Piece;
 import com.chess.engine.player.Player;
 import com.chess.engine.player.ai.MiniMaxAI;
+import com.chess.engine.player.ai.SearchLimits;
 
 import javax.swing.*;
 import java.awt.*;
@@ -15,6 +17,7 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Stack;
+import java.util.concurrent.ExecutionException;
 
 public class Table {
 
@@ -30,6 +33,11 @@ public class Table {
     private Tile sourceTile = null;
     private Collection<Move> legalMovesForPiece = null;
     private boolean gameOver = false;
+    private static final long AI_MOVE_TIME_MILLIS = 1000;
+    // Kept for the whole session so its transposition table carries over between moves
+    private final MiniMaxAI ai = new MiniMaxAI(SearchLimits.moveTime(AI_MOVE_TIME_MILLIS));
+    // The AI's search in progress, run off the event dispatch thread; null when none is running
+    private SwingWorker<Move, Void> aiSearch = null;
 
     public Table() {
         this.chessBoard = Board.createStandardBoard();
@@ -206,7 +214,7 @@ public class Table {
 
     // === CLICK HANDLER ===
     private void handleClick(TilePanel clickedTilePanel) {
-        if (gameOver) return;
+        if (gameOver || aiSearch != null) return;
 
         final Tile clickedTile = chessBoard.getTile(clickedTilePanel.tileId);
 
@@ -217,17 +225,10 @@ public class Table {
                 legalMovesForPiece = filterLegalMoves(clickedTile);
             }
         } else {
-            Move chosenMove = null;
-            if (legalMovesForPiece != null) {
-                for (Move m : legalMovesForPiece) {
-                    if (m.getDestinationCoordinate() == clickedTile.getTileCoordinate()) {
-                        chosenMove = m;
-                        break;
-                    }
-                }
-            }
+            final Move chosenMove = Move.MoveFactory.createMove(chessBoard,
+                    sourceTile.getTileCoordinate(), clickedTile.getTileCoordinate());
 
-            if (chosenMove == null && clickedTile.isTileOccupied() &&
+            if (chosenMove == Move.NULL_MOVE && clickedTile.isTileOccupied() &&
                     clickedTile.getPiece().getPieceAlliance() == chessBoard.currentPlayer().getAlliance()) {
                 sourceTile = clickedTile;
                 legalMovesForPiece = filterLegalMoves(clickedTile);
@@ -235,20 +236,14 @@ public class Table {
                 return;
             }
 
-            if (chosenMove != null && chosenMove != Move.NULL_MOVE) {
-                boardHistory.push(chessBoard); // store current board
+            if (chosenMove != Move.NULL_MOVE) {
+                pushHistory(chessBoard); // store current board
                 chessBoard = chosenMove.execute();
                 updateGameBoard();
 
                 // === AI MOVE ===
                 if (playWithAI && !gameOver && chessBoard.currentPlayer().getAlliance().isBlack()) {
-                    boardHistory.push(chessBoard); // store before AI move
-                    MiniMaxAI ai = new MiniMaxAI(3);
-                    Move aiMove = ai.execute(chessBoard);
-                    if (aiMove != null) {
-                        chessBoard = aiMove.execute();
-                        updateGameBoard();
-                    }
+                    startAISearch();
                 }
             }
 
@@ -259,21 +254,57 @@ public class Table {
         boardPanel.drawBoard();
     }
 
+    // Searches on a worker thread so the window keeps painting; the move is played back on the EDT
+    private void startAISearch() {
+        final Board searchedBoard = chessBoard;
+        aiSearch = new SwingWorker<Move, Void>() {
+            @Override
+            protected Move doInBackground() {
+                return ai.execute(searchedBoard);
+            }
+
+            @Override
+            protected void done() {
+                aiSearch = null;
+                final Move aiMove;
+                try {
+                    aiMove = get();
+                } catch (InterruptedException | ExecutionException e) {
+                    throw new RuntimeException("AI search failed", e);
+                }
+                // A new game may have started while the AI was thinking
+                if (aiMove == null || chessBoard != searchedBoard) {
+                    return;
+                }
+                pushHistory(chessBoard); // store before AI move
+                chessBoard = aiMove.execute();
+                updateGameBoard();
+                boardPanel.drawBoard();
+            }
+        };
+        aiSearch.execute();
+    }
+
     private Collection<Move> filterLegalMoves(Tile clickedTile) {
         Collection<Move> filtered = new ArrayList<>();
         for (Move m : chessBoard.currentPlayer().getLegalMoves()) {
+            // getLegalMoves already excludes moves that leave the king in check
             if (m.getMovedPiece().equals(clickedTile.getPiece())) {
-                final Board movedBoard = m.execute();
-                if (!movedBoard.currentPlayer().getOpponent().isInCheck()) {
-                    filtered.add(m);
-                }
+                filtered.add(m);
             }
         }
         return filtered;
     }
 
+    // History boards drop their move lists; undo rebuilds them when needed
+    private void pushHistory(final Board board) {
+        board.releaseMoveLists();
+        boardHistory.push(board);
+    }
+
     // === UNDO MOVE ===
     private void undoMove() {
+        if (aiSearch != null) return; // the AI's reply is still coming
         if (!boardHistory.isEmpty()) {
             chessBoard = boardHistory.pop();
             sourceTile = null;
@@ -290,8 +321,9 @@ public class Table {
 
     private void updateGameBoard() {
         Player currentPlayer = chessBoard.currentPlayer();
+        final GameState gameState = chessBoard.getGameState();
 
-        if (currentPlayer.isInCheckMate()) {
+        if (gameState == GameState.CHECKMATE) {
             String winner = currentPlayer.getOpponent().getAlliance().toString();
             JOptionPane.showMessageDialog(gameFrame,
                     "Checkmate! " + winner + " wins!",
@@ -301,7 +333,7 @@ public class Table {
             return;
         }
 
-        if (currentPlayer.isInStalemate()) {
+        if (gameState == GameState.STALEMATE) {
             JOptionPane.showMessageDialog(gameFrame,
                     "Stalemate! It's a draw.",
                     "Game Over",
@@ -310,7 +342,7 @@ public class Table {
             return;
         }
 
-        if (currentPlayer.isInCheck()) {
+        if (gameState == GameState.CHECK) {
             JOptionPane.showMessageDialog(gameFrame,
                     "Check! " + currentPlayer.getAlliance() + " king is under attack.",
                     "Warning",